@@ -0,0 +1,75 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.benchmarks;
+
+import net.jeremybrooks.readsy.BitHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse and write status flags, and count unread days.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BitHelperBenchmark {
+    private String hex;
+    private BitHelper bitHelper;
+
+    @Setup
+    public void setup() {
+        bitHelper = new BitHelper();
+        // every third day read
+        for (int day = 1; day <= 366; day += 3) {
+            bitHelper.setRead(day, true);
+        }
+        hex = bitHelper.toString();
+    }
+
+    @Benchmark
+    public BitHelper parse() {
+        return new BitHelper(hex);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return bitHelper.toString();
+    }
+
+    @Benchmark
+    public int unreadCount() {
+        return bitHelper.getUnreadItemCount(1, 366);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.benchmarks;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.control.ListView;
+import net.jeremybrooks.readsy.Constants;
+import net.jeremybrooks.readsy.CoverCache;
+import net.jeremybrooks.readsy.gui.BookCell;
+import net.jeremybrooks.readsy.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Create library list cells and show books in them, as happens when the list is
+ * resized or scrolled. {@code fxmlCell} parses the same node graph from FXML, which
+ * is how cells used to be built.
+ * <p>
+ * This starts the JavaFX toolkit, so it needs a display like the application does.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookCellBenchmark {
+    private static final int BOOKS = 5000;
+    private static final byte[] CELL_FXML = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <?import javafx.scene.control.Label?>
+            <?import javafx.scene.image.ImageView?>
+            <?import javafx.scene.layout.AnchorPane?>
+            <?import javafx.scene.layout.HBox?>
+            <?import javafx.scene.layout.VBox?>
+            <AnchorPane prefHeight="100.0" prefWidth="397.0" xmlns="http://javafx.com/javafx/23.0.1" xmlns:fx="http://javafx.com/fxml/1">
+               <children>
+                  <HBox prefHeight="100.0" prefWidth="400.0">
+                     <children>
+                        <ImageView fx:id="coverImage" fitHeight="100.0" fitWidth="100.0" pickOnBounds="true" preserveRatio="true" />
+                        <VBox prefHeight="100.0" prefWidth="503.0">
+                           <children>
+                              <Label fx:id="title" prefHeight="17.0" prefWidth="500.0" text="Title" />
+                              <Label fx:id="author" prefHeight="17.0" prefWidth="501.0" text="Author" />
+                              <Label fx:id="status" text="Unread" />
+                           </children>
+                        </VBox>
+                     </children>
+                  </HBox>
+               </children>
+            </AnchorPane>
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private Path libraryDirectory;
+    private CoverCache coverCache;
+    private BookCell cell;
+    private int index;
+
+    @Setup
+    public void setup() throws Exception {
+        try {
+            Platform.startup(() -> {
+            });
+        } catch (IllegalStateException e) {
+            // already running
+        }
+        libraryDirectory = Files.createTempDirectory("readsy-benchmark-cells");
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setAuthor("Author " + i);
+            book.setStatusFlags(Constants.NOTHING_READ);
+            book.setReadingStartDate("2025-01-01");
+            book.setReadingEndDate("2025-12-31");
+            book.setBookPath(libraryDirectory.resolve("book" + i).resolve("book.json").toString());
+            books.add(book);
+        }
+        coverCache = new CoverCache(100, 100);
+        cell = new BookCell(coverCache);
+        cell.updateListView(new ListView<>(FXCollections.observableList(books)));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.delete(libraryDirectory);
+    }
+
+    @Benchmark
+    public BookCell createCell() {
+        return new BookCell(coverCache);
+    }
+
+    @Benchmark
+    public Parent fxmlCell() throws Exception {
+        return new FXMLLoader().load(new ByteArrayInputStream(CELL_FXML));
+    }
+
+    @Benchmark
+    public Object updateItem() {
+        index = (index + 1) % BOOKS;
+        cell.updateIndex(index);
+        return cell.getGraphic();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.benchmarks;
+
+import net.jeremybrooks.readsy.BookUtils;
+import net.jeremybrooks.readsy.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading date calculations done each time a page is shown.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookUtilsBenchmark {
+    private Book book;
+
+    @Setup
+    public void setup() {
+        book = new Book();
+        book.setReadingStartDate("2025-07-01");
+        book.setReadingEndDate("2026-06-30");
+        book.setPageDate(LocalDate.of(2026, 2, 14));
+    }
+
+    @Benchmark
+    public int dayOfReadingYear() {
+        return BookUtils.getDayOfReadingYear(book);
+    }
+
+    @Benchmark
+    public int daysInReadingYear() {
+        return BookUtils.getDaysInReadingYear(book);
+    }
+
+    @Benchmark
+    public boolean isPageDateInReadingRange() {
+        return BookUtils.isPageDateInReadingRange(book);
+    }
+}
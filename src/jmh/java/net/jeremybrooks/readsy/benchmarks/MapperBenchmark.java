@@ -0,0 +1,102 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import net.jeremybrooks.readsy.Constants;
+import net.jeremybrooks.readsy.MapperFactory;
+import net.jeremybrooks.readsy.model.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare reading and writing book.json with a new ObjectMapper for every call,
+ * the shared readers and writers, and the shared readers and writers with Blackbird.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+    private byte[] json;
+    private Book book;
+    private ObjectReader acceleratedReader;
+    private ObjectWriter acceleratedWriter;
+
+    @Setup
+    public void setup() throws Exception {
+        book = new Book();
+        book.setTitle("War and Peace, Super Boring Edition");
+        book.setShortTitle("WaP");
+        book.setAuthor("Leo Tolstoy");
+        book.setVersion("1.0");
+        book.setStatusFlags(Constants.NOTHING_READ);
+        book.setReadingStartDate("2025-01-01");
+        book.setReadingEndDate("2025-12-31");
+        json = MapperFactory.getBookWriter().writeValueAsBytes(book);
+        acceleratedReader = MapperFactory.getObjectMapper(true).readerFor(Book.class);
+        acceleratedWriter = MapperFactory.getObjectMapper(true).writerFor(Book.class);
+    }
+
+    @Benchmark
+    public Book readNewMapper() throws Exception {
+        return MapperFactory.getObjectMapper().readValue(json, Book.class);
+    }
+
+    @Benchmark
+    public Book readSharedReader() throws Exception {
+        return MapperFactory.getBookReader().readValue(json);
+    }
+
+    @Benchmark
+    public Book readAcceleratedReader() throws Exception {
+        return acceleratedReader.readValue(json);
+    }
+
+    @Benchmark
+    public byte[] writeNewMapper() throws Exception {
+        return MapperFactory.getObjectMapper().writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public byte[] writeSharedWriter() throws Exception {
+        return MapperFactory.getBookWriter().writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public byte[] writeAcceleratedWriter() throws Exception {
+        return acceleratedWriter.writeValueAsBytes(book);
+    }
+}
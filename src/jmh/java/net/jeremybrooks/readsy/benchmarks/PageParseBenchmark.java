@@ -0,0 +1,87 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.benchmarks;
+
+import net.jeremybrooks.readsy.MapperFactory;
+import net.jeremybrooks.readsy.PageStore;
+import net.jeremybrooks.readsy.model.Page;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse a page from JSON bytes, and read a page from a packed page file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PageParseBenchmark {
+    private Path bookDirectory;
+    private PageStore pageStore;
+    private byte[] json;
+
+    @Setup
+    public void setup() throws Exception {
+        bookDirectory = Files.createTempDirectory("readsy-benchmark-pages");
+        Page page = new Page();
+        page.setHeading("January 1");
+        page.setText("Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(60));
+        json = MapperFactory.getPageWriter().writeValueAsBytes(page);
+        for (int day = 1; day <= 366; day++) {
+            Files.write(bookDirectory.resolve(day + ".json"), json);
+        }
+        PageStore.pack(bookDirectory);
+        pageStore = PageStore.open(bookDirectory);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        pageStore = null;
+        FileUtils.deleteDirectory(bookDirectory.toFile());
+    }
+
+    @Benchmark
+    public Page parseJson() throws Exception {
+        return MapperFactory.getPageReader().readValue(json);
+    }
+
+    @Benchmark
+    public Page readPacked() throws Exception {
+        return pageStore.readPage(183);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.benchmarks;
+
+import net.jeremybrooks.readsy.ReadingCalendar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the previous calendar-year based day of reading year calculation
+ * with the epoch day arithmetic in ReadingCalendar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadingCalendarBenchmark {
+    private LocalDate start;
+    private LocalDate end;
+    private LocalDate current;
+    private long startEpochDay;
+    private long endEpochDay;
+    private long currentEpochDay;
+
+    @Setup
+    public void setup() {
+        start = LocalDate.of(2025, 7, 1);
+        end = start.plusYears(1).minusDays(1);
+        current = LocalDate.of(2026, 2, 14);
+        startEpochDay = start.toEpochDay();
+        endEpochDay = end.toEpochDay();
+        currentEpochDay = current.toEpochDay();
+    }
+
+    @Benchmark
+    public int dayOfReadingYearLegacy() {
+        return legacyDayOfReadingYear(start, current);
+    }
+
+    @Benchmark
+    public int dayOfReadingYearEpochDay() {
+        return ReadingCalendar.dayOfReadingYear(startEpochDay, currentEpochDay);
+    }
+
+    @Benchmark
+    public boolean isInRangeLegacy() {
+        return current.isEqual(start) || current.isEqual(end) ||
+                (current.isAfter(start) && current.isBefore(end));
+    }
+
+    @Benchmark
+    public boolean isInRangeEpochDay() {
+        return ReadingCalendar.isInRange(currentEpochDay, startEpochDay, endEpochDay);
+    }
+
+    /*
+     * The calculation BookUtils.getDayOfReadingYear used before ReadingCalendar.
+     */
+    private static int legacyDayOfReadingYear(LocalDate startDate, LocalDate currentDate) {
+        int readingStartDay = startDate.getDayOfYear();
+        int dayOfCalendarYear = currentDate.getDayOfYear();
+        int dayOfReadingYear;
+        if (currentDate.getYear() == startDate.getYear()) {
+            dayOfReadingYear = dayOfCalendarYear - readingStartDay;
+        } else {
+            LocalDate endOfYear = LocalDate.of(startDate.getYear(), 12, 31);
+            dayOfReadingYear = endOfYear.getDayOfYear() - readingStartDay;
+            dayOfReadingYear += dayOfCalendarYear;
+        }
+        return dayOfReadingYear + 1;
+    }
+}
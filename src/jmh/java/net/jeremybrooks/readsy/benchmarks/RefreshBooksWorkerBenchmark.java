@@ -0,0 +1,122 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.benchmarks;
+
+import net.jeremybrooks.readsy.Constants;
+import net.jeremybrooks.readsy.LibraryIndex;
+import net.jeremybrooks.readsy.LibrarySnapshot;
+import net.jeremybrooks.readsy.MapperFactory;
+import net.jeremybrooks.readsy.model.Book;
+import net.jeremybrooks.readsy.workers.RefreshBooksWorker;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scan a synthetic library into an empty index, and load the same library from a snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RefreshBooksWorkerBenchmark {
+    @Param({"10", "1000", "10000"})
+    private int books;
+
+    private Path libraryDirectory;
+    private Path snapshotFile;
+    private LibraryIndex libraryIndex;
+
+    @Setup(Level.Trial)
+    public void createLibrary() throws Exception {
+        libraryDirectory = Files.createTempDirectory("readsy-benchmark-library");
+        for (int i = 0; i < books; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setShortTitle("book" + i);
+            book.setAuthor("Author " + i);
+            book.setVersion("1");
+            book.setStatusFlags(Constants.NOTHING_READ);
+            book.setReadingStartDate("2025-01-01");
+            book.setReadingEndDate("2025-12-31");
+            Path bookDirectory = Files.createDirectory(libraryDirectory.resolve(String.format("book%05d", i)));
+            Files.write(bookDirectory.resolve("book.json"), MapperFactory.getBookWriter().writeValueAsBytes(book));
+        }
+        LibraryIndex index = new LibraryIndex(libraryDirectory);
+        new RefreshBooksWorker(index, Set.of(libraryDirectory), Runnable::run).run();
+        List<LibrarySnapshot.Entry> entries = new ArrayList<>();
+        for (Path dir : index.getBookDirectories()) {
+            entries.add(new LibrarySnapshot.Entry(dir, index.getBook(dir), index.getModifiedTime(dir)));
+        }
+        index.close();
+        snapshotFile = Files.createTempFile("readsy-benchmark-library", ".snapshot");
+        Files.write(snapshotFile, LibrarySnapshot.toBytes(libraryDirectory, entries));
+    }
+
+    @Setup(Level.Invocation)
+    public void createIndex() {
+        libraryIndex = new LibraryIndex(libraryDirectory, snapshotFile);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeIndex() {
+        libraryIndex.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteLibrary() throws Exception {
+        FileUtils.deleteDirectory(libraryDirectory.toFile());
+        Files.delete(snapshotFile);
+    }
+
+    @Benchmark
+    public int scan() {
+        new RefreshBooksWorker(libraryIndex, Set.of(libraryDirectory), Runnable::run).run();
+        return libraryIndex.getBooks().size();
+    }
+
+    @Benchmark
+    public int loadSnapshot() {
+        libraryIndex.loadSnapshot();
+        return libraryIndex.getBooks().size();
+    }
+}
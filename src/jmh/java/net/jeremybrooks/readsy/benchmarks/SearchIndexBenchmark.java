@@ -0,0 +1,105 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.benchmarks;
+
+import net.jeremybrooks.readsy.MapperFactory;
+import net.jeremybrooks.readsy.PageStore;
+import net.jeremybrooks.readsy.SearchIndex;
+import net.jeremybrooks.readsy.model.Page;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search a library of 500 books of 366 pages each, with a vocabulary of 5000 words.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchIndexBenchmark {
+    private static final int BOOKS = 500;
+    private static final int DAYS = 366;
+    private static final int WORDS = 5000;
+
+    private Path library;
+    private SearchIndex searchIndex;
+
+    @Setup
+    public void setup() throws Exception {
+        library = Files.createTempDirectory("readsy-benchmark-search");
+        Random random = new Random(42);
+        List<Path> books = new ArrayList<>();
+        for (int b = 0; b < BOOKS; b++) {
+            Path bookDirectory = Files.createDirectory(library.resolve("book" + b));
+            for (int day = 1; day <= DAYS; day++) {
+                StringBuilder text = new StringBuilder();
+                for (int w = 0; w < 200; w++) {
+                    // skew towards common words, like real text
+                    text.append("word").append((int) (WORDS * Math.pow(random.nextDouble(), 3))).append(' ');
+                }
+                Page page = new Page();
+                page.setHeading("Day " + day);
+                page.setText(text.toString());
+                Files.write(bookDirectory.resolve(day + ".json"), MapperFactory.getPageWriter().writeValueAsBytes(page));
+            }
+            PageStore.pack(bookDirectory);
+            books.add(bookDirectory);
+        }
+        searchIndex = new SearchIndex();
+        searchIndex.update(books).get();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        searchIndex.close();
+        FileUtils.deleteDirectory(library.toFile());
+    }
+
+    @Benchmark
+    public List<SearchIndex.Result> searchRareWord() {
+        return searchIndex.search("word4999", 100);
+    }
+
+    @Benchmark
+    public List<SearchIndex.Result> searchTwoWords() {
+        return searchIndex.search("word2500 word3000", 100);
+    }
+}
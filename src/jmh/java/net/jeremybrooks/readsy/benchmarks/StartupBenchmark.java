@@ -0,0 +1,95 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.benchmarks;
+
+import net.jeremybrooks.readsy.StartupTimer;
+import net.jeremybrooks.readsy.TrainingRun;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Start readsy in a new JVM and wait for it to exit once the window is interactive,
+ * with and without the class data sharing archive recorded by a training run.
+ * <p>
+ * This starts the application, so it needs a display.
+ * </p>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+    @Param({"false", "true"})
+    private boolean archive;
+
+    private Path home;
+    private Path archiveFile;
+
+    @Setup
+    public void setup() throws Exception {
+        home = Files.createTempDirectory("readsy-benchmark-startup");
+        TrainingRun.prepareHome(home);
+        archiveFile = home.resolve("readsy.jsa");
+        if (archive && TrainingRun.train(archiveFile) != 0) {
+            throw new IllegalStateException("Training run failed");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileUtils.deleteQuietly(home.toFile());
+    }
+
+    @Benchmark
+    public int startToInteractive() throws Exception {
+        List<String> command = TrainingRun.command(home,
+                "-D" + StartupTimer.EXIT_PROPERTY + "=true",
+                archive ? "-XX:SharedArchiveFile=" + archiveFile : "-Xshare:auto");
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        if (!process.waitFor(2, TimeUnit.MINUTES)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("readsy did not start");
+        }
+        return process.exitValue();
+    }
+}
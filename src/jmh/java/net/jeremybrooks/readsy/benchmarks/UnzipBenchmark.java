@@ -0,0 +1,95 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.benchmarks;
+
+import net.jeremybrooks.readsy.BookUtils;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Unzip a book archive with a page for every day of the year.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnzipBenchmark {
+    private Path zipFile;
+    private Path targetDirectory;
+
+    @Setup(Level.Trial)
+    public void createArchive() throws Exception {
+        zipFile = Files.createTempFile("readsy-benchmark", ".readsy");
+        String text = "{\"heading\":\"January 1\",\"text\":\"" + "Lorem ipsum dolor sit amet. ".repeat(120) + "\"}";
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zipFile))) {
+            out.putNextEntry(new ZipEntry("book.json"));
+            out.write("{\"title\":\"Benchmark\"}".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            for (int day = 1; day <= 366; day++) {
+                out.putNextEntry(new ZipEntry(day + ".json"));
+                out.write(text.getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createTarget() throws Exception {
+        targetDirectory = Files.createTempDirectory("readsy-benchmark-unzip");
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteTarget() throws Exception {
+        FileUtils.deleteDirectory(targetDirectory.toFile());
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteArchive() throws Exception {
+        Files.deleteIfExists(zipFile);
+    }
+
+    @Benchmark
+    public Path unzip() throws Exception {
+        BookUtils.unzip(zipFile, targetDirectory);
+        return targetDirectory;
+    }
+}
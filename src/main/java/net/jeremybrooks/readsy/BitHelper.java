@@ -24,11 +24,19 @@ package net.jeremybrooks.readsy;
 import java.time.LocalDate;
 
 /**
+ * Tracks the read/unread status of each day in a reading year.
+ * <p>
+ * Status flags are stored one bit per day, packed into 64-bit words. Day 1 of the
+ * reading year is bit 0 of the first word. The hex string representation used in
+ * book.json stores the same bits one byte at a time, lowest days first.
+ *
  * @author Jeremy Brooks
  */
 public class BitHelper {
 
-  private final byte[] bytes;
+  private final long[] words;
+  /* number of bytes in the hex representation, so toString() round trips */
+  private final int byteCount;
   private static final String EMPTY_BITSET = "00000000000000000000000000000000000000000000000000000000000000000000000000000000000000000000";
 
   /**
@@ -46,23 +54,33 @@ public class BitHelper {
    */
   public BitHelper(String hexBytes) {
     int len = hexBytes.length();
-    bytes = new byte[len / 2];
-    for (int i = 0; i < len; i += 2) {
-      bytes[i / 2] = (byte) ((Character.digit(hexBytes.charAt(i), 16) << 4)
-          + Character.digit(hexBytes.charAt(i + 1), 16));
+    byteCount = len / 2;
+    words = new long[(byteCount + 7) / 8];
+    for (int i = 0; i < byteCount; i++) {
+      long b = (Character.digit(hexBytes.charAt(i * 2), 16) << 4)
+          + Character.digit(hexBytes.charAt(i * 2 + 1), 16);
+      words[i >>> 3] |= b << ((i & 7) * 8);
     }
   }
 
   public boolean isRead(int dayOfReadingYear) {
-    int mask = (int) Math.pow(2, (dayOfReadingYear - 1) % 8);            // adjust to zero-based index
-    return ((this.bytes[whichByte(dayOfReadingYear)]) & mask) == mask;
+    int bit = dayOfReadingYear - 1;            // adjust to zero-based index
+    if (bit < 0 || bit >= capacity()) {
+      return false;
+    }
+    return (words[bit >>> 6] & (1L << bit)) != 0;
   }
 
 
   public void setRead(int dayOfReadingYear, boolean read) {
-    if (this.isRead(dayOfReadingYear) != read) {
-      int result = ((int) this.bytes[whichByte(dayOfReadingYear)]) ^ (int) Math.pow(2, (dayOfReadingYear - 1) % 8);
-      this.bytes[whichByte(dayOfReadingYear)] = (byte) result;
+    int bit = dayOfReadingYear - 1;
+    if (bit < 0 || bit >= capacity()) {
+      throw new IndexOutOfBoundsException("Day " + dayOfReadingYear + " is outside of the range 1-" + capacity());
+    }
+    if (read) {
+      words[bit >>> 6] |= 1L << bit;
+    } else {
+      words[bit >>> 6] &= ~(1L << bit);
     }
   }
 
@@ -74,7 +92,16 @@ public class BitHelper {
    * @return which byte position contains the day.
    */
   public int whichByte(int dayOfYear) {
-    return this.bytes.length - (((this.bytes.length * 8) - dayOfYear) / 8) - 1;
+    return byteCount - (((byteCount * 8) - dayOfYear) / 8) - 1;
+  }
+
+  /**
+   * Get the number of days that can be tracked by this instance.
+   *
+   * @return number of days that can be tracked.
+   */
+  public int capacity() {
+    return byteCount * 8;
   }
 
 
@@ -86,15 +113,46 @@ public class BitHelper {
    * @return number of unread items in the range.
    */
   public int getUnreadItemCount(LocalDate readingStartDate, LocalDate currentDate) {
-    int count = 0;
-    do {
-      int dayOfReadingYear = BookUtils.getDayOfReadingYear(readingStartDate, currentDate);
-      if (!isRead(dayOfReadingYear)) {
-        count++;
-      }
-      readingStartDate = readingStartDate.plusDays(1);
-    } while (! readingStartDate.isAfter(currentDate));
-    return count;
+    long days = currentDate.toEpochDay() - readingStartDate.toEpochDay() + 1;
+    if (days < 1) {
+      return 0;
+    }
+    return getUnreadItemCount(1, (int) Math.min(days, Integer.MAX_VALUE));
+  }
+
+  /**
+   * Count the number of unread items between two days of the reading year, inclusive.
+   * <p>
+   * Days past the end of the flags can never be marked read, so they are counted as unread.
+   *
+   * @param firstDay first day of the reading year to count. Days start at 1.
+   * @param lastDay last day of the reading year to count.
+   * @return number of unread items in the range.
+   */
+  public int getUnreadItemCount(int firstDay, int lastDay) {
+    int first = Math.max(firstDay, 1);
+    if (lastDay < first) {
+      return 0;
+    }
+    int unread = lastDay - first + 1;
+    int from = first - 1;                     // zero-based, inclusive
+    int to = Math.min(lastDay, capacity());   // zero-based, exclusive
+    if (from >= to) {
+      return unread;
+    }
+    int fromWord = from >>> 6;
+    int toWord = (to - 1) >>> 6;
+    long firstMask = -1L << from;
+    long lastMask = -1L >>> -to;
+    if (fromWord == toWord) {
+      return unread - Long.bitCount(words[fromWord] & firstMask & lastMask);
+    }
+    int read = Long.bitCount(words[fromWord] & firstMask);
+    for (int i = fromWord + 1; i < toWord; i++) {
+      read += Long.bitCount(words[i]);
+    }
+    read += Long.bitCount(words[toWord] & lastMask);
+    return unread - read;
   }
 
   /**
@@ -104,10 +162,12 @@ public class BitHelper {
    */
   @Override
   public String toString() {
-    StringBuilder sb = new StringBuilder();
-    for (byte aByte : this.bytes) {
-      sb.append(String.format("%02x", aByte));
+    char[] hex = new char[byteCount * 2];
+    for (int i = 0; i < byteCount; i++) {
+      int b = (int) (words[i >>> 3] >>> ((i & 7) * 8)) & 0xff;
+      hex[i * 2] = Character.forDigit(b >>> 4, 16);
+      hex[i * 2 + 1] = Character.forDigit(b & 0xf, 16);
     }
-    return sb.toString();
+    return new String(hex);
   }
 }
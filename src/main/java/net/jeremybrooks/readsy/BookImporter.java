@@ -0,0 +1,247 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Book;
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Import a .readsy archive into the library.
+ * <p>
+ * The archive is opened as a zip file system, and book.json is read and checked before
+ * anything is extracted. Entries are then copied in parallel straight into the new book
+ * directory, the pages are packed, and book.json is written last, so the library only
+ * sees the book once it is complete.
+ * </p>
+ */
+public class BookImporter implements Closeable {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final String BOOK_FILE_NAME = "book.json";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path archive;
+    private final FileSystem zipFileSystem;
+    private final Path root;
+    private final String directoryName;
+    private final Book book;
+
+    private BookImporter(Path archive, FileSystem zipFileSystem, Path root, String directoryName, Book book) {
+        this.archive = archive;
+        this.zipFileSystem = zipFileSystem;
+        this.root = root;
+        this.directoryName = directoryName;
+        this.book = book;
+    }
+
+    /**
+     * Open an archive and read its book.json.
+     * <p>
+     * The book files may be at the top of the archive, or in a single directory.
+     * </p>
+     *
+     * @param archive the .readsy file.
+     * @return importer for the archive.
+     * @throws IOException if the archive cannot be read, or does not contain a valid book.json.
+     */
+    public static BookImporter open(Path archive) throws IOException {
+        FileSystem zipFileSystem = FileSystems.newFileSystem(
+                URI.create("jar:" + archive.toAbsolutePath().toUri()), Map.of());
+        try {
+            Path top = zipFileSystem.getPath("/");
+            Path root = top;
+            String directoryName = archive.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+            if (!Files.isRegularFile(top.resolve(BOOK_FILE_NAME))) {
+                try (Stream<Path> children = Files.list(top)) {
+                    root = children.filter(child -> Files.isRegularFile(child.resolve(BOOK_FILE_NAME)))
+                            .findFirst()
+                            .orElseThrow(() -> new IOException("No " + BOOK_FILE_NAME + " in " + archive));
+                }
+                directoryName = root.getFileName().toString().replace("/", "");
+            }
+            Book book = MapperFactory.getBookReader().readValue(Files.readAllBytes(root.resolve(BOOK_FILE_NAME)));
+            validate(book, archive);
+            return new BookImporter(archive, zipFileSystem, root, directoryName, book);
+        } catch (IOException | RuntimeException e) {
+            zipFileSystem.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Get the book read from the archive.
+     * Changes made to the book are written to book.json when the book is extracted.
+     *
+     * @return the book.
+     */
+    public Book getBook() {
+        return book;
+    }
+
+    /**
+     * Set the reading dates of a newly added book.
+     * <p>
+     * Books that are valid for any year are read for one year starting today. Books for a
+     * specific year are read from January 1 through December 31 of that year.
+     * </p>
+     *
+     * @param book  the book.
+     * @param today the date the book is added.
+     */
+    public static void setReadingDates(Book book, LocalDate today) {
+        if (book.getValidYear() == 0) {
+            book.setReadingStart(today);
+            book.setReadingEnd(today.plusYears(1).minusDays(1));
+        } else {
+            book.setReadingStart(LocalDate.of(book.getValidYear(), 1, 1));
+            book.setReadingEnd(LocalDate.of(book.getValidYear(), 12, 31));
+        }
+    }
+
+    /**
+     * Get the name of the directory the book will be extracted to.
+     *
+     * @return directory name.
+     */
+    public String getDirectoryName() {
+        return directoryName;
+    }
+
+    /**
+     * Extract the book into the library.
+     *
+     * @param libraryDirectory the directory containing all books.
+     * @return the new book directory.
+     * @throws FileAlreadyExistsException if the library already has a directory with the name of this book.
+     * @throws IOException                if the book could not be extracted. Nothing is left in the library
+     *                                    if extracting fails.
+     */
+    public Path extractTo(Path libraryDirectory) throws IOException {
+        Path bookDirectory = libraryDirectory.resolve(directoryName).normalize();
+        if (!bookDirectory.startsWith(libraryDirectory) || bookDirectory.equals(libraryDirectory)) {
+            throw new IOException("Invalid book directory name: " + directoryName);
+        }
+        Files.createDirectory(bookDirectory);
+        try {
+            extractEntries(bookDirectory);
+            // pack the pages into a single file; if this fails, the pages are still readable
+            try {
+                PageStore.pack(bookDirectory);
+            } catch (Exception e) {
+                logger.warn("Could not pack pages for {}", book.getTitle(), e);
+            }
+            book.setBookPath(bookDirectory.resolve(BOOK_FILE_NAME).toString());
+            BookUtils.writeAtomically(bookDirectory.resolve(BOOK_FILE_NAME),
+                    MapperFactory.getBookWriter().writeValueAsBytes(book));
+        } catch (IOException | RuntimeException e) {
+            FileUtils.deleteQuietly(bookDirectory.toFile());
+            throw e;
+        }
+        logger.info("Imported {} from {} to {}", book.getTitle(), archive, bookDirectory);
+        return bookDirectory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        zipFileSystem.close();
+    }
+
+    private void extractEntries(Path bookDirectory) throws IOException {
+        List<Path> entries;
+        try (Stream<Path> walk = Files.walk(root)) {
+            entries = walk.filter(Files::isRegularFile)
+                    .filter(entry -> !entry.equals(root.resolve(BOOK_FILE_NAME)))
+                    .toList();
+        }
+        try (ExecutorService copiers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Path entry : entries) {
+                Path target = bookDirectory.resolve(root.relativize(entry).toString()).normalize();
+                // Prevent Zip Slip vulnerability
+                if (!target.startsWith(bookDirectory)) {
+                    throw new IOException("Entry is outside of target directory: " + entry);
+                }
+                futures.add(copiers.submit(() -> {
+                    copy(entry, target);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting " + archive, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw new IOException("Error extracting " + archive, e.getCause());
+        }
+    }
+
+    private static void copy(Path entry, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try (InputStream in = Files.newInputStream(entry);
+             OutputStream out = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) != -1) {
+                out.write(buffer, 0, bytesRead);
+            }
+        }
+    }
+
+    private static void validate(Book book, Path archive) throws IOException {
+        if (book.getTitle() == null || book.getTitle().isBlank()) {
+            throw new IOException("The book in " + archive + " has no title.");
+        }
+        if (book.getStatusFlags() != null && !book.getStatusFlags().matches("([0-9a-fA-F]{2})*")) {
+            throw new IOException("The book in " + archive + " has invalid status flags.");
+        }
+        if (book.getValidYear() < 0) {
+            throw new IOException("The book in " + archive + " has an invalid year.");
+        }
+    }
+}
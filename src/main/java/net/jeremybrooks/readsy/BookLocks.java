@@ -0,0 +1,53 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One lock per book directory.
+ * <p>
+ * Code that writes, packs, reads a whole book or deletes a book holds the lock for
+ * that book while it works, so that one of them never sees the page files half way
+ * through a change made by another.
+ * </p>
+ */
+public final class BookLocks {
+    private static final Map<Path, Lock> locks = new ConcurrentHashMap<>();
+
+    private BookLocks() {
+    }
+
+    /**
+     * Get the lock for a book.
+     *
+     * @param bookDirectory the directory containing the book.
+     * @return the lock, the same instance for every path to the same directory.
+     */
+    public static Lock forBook(Path bookDirectory) {
+        return locks.computeIfAbsent(bookDirectory.toAbsolutePath().normalize(), directory -> new ReentrantLock());
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Book;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Write a book directory to a .readsy file.
+ * <p>
+ * Files and pages are read and deflated on a few background threads while earlier
+ * entries are written, with only a handful of entries held in memory at once. Images and
+ * other files that are already compressed are stored as they are. The archive is written
+ * here rather than through {@code ZipOutputStream}, which can only deflate on the thread
+ * that writes, so that entries can be compressed ahead of the writer.
+ * </p>
+ * <p>
+ * Every page is written as its own {@code <day>.json} file, whether the book keeps its
+ * pages in loose files or in a packed page file, and days that have not been written are
+ * written as blank pages, so the archive can be read by every version of readsy. The
+ * archive is a standard zip file with every entry in a directory named after the book.
+ * </p>
+ */
+public class BookPackager {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** Extensions of files that are stored without compression. */
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of("png", "jpg", "jpeg", "gif", "gz", "zip");
+
+    /** Files that readsy can rebuild, and are not part of a packaged book. */
+    private static final Set<String> EXCLUDED_FILES = Set.of(
+            PageStore.PACK_FILE_NAME, PageCompleteness.FILE_NAME, SearchIndex.INDEX_FILE_NAME);
+
+    private static final int READERS = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final int MAX_IN_FLIGHT = READERS * 2;
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final short VERSION = 20;
+    private static final short UTF8_FLAG = 0x0800;
+    private static final short STORED = 0;
+    private static final short DEFLATED = 8;
+
+    private BookPackager() {
+    }
+
+    /**
+     * Write a book to a .readsy file.
+     * The file is replaced only once it has been completely written.
+     *
+     * @param bookDirectory the directory containing the book.
+     * @param entryPrefix   name of the directory the book files are stored in, inside the archive.
+     * @param target        the file to write.
+     * @param progress      called with the number of entries written and the total number of entries.
+     * @throws IOException if the book could not be read or the file could not be written.
+     */
+    public static void pack(Path bookDirectory, String entryPrefix, Path target,
+                            BiConsumer<Integer, Integer> progress) throws IOException {
+        pack(bookDirectory, entryPrefix, List.of(target), progress);
+    }
+
+    /**
+     * Write a book to one or more files with the same content, in a single pass over the book.
+     * No file is replaced until all of them have been completely written.
+     *
+     * @param bookDirectory the directory containing the book.
+     * @param entryPrefix   name of the directory the book files are stored in, inside the archive.
+     * @param targets       the files to write.
+     * @param progress      called with the number of entries written and the total number of entries.
+     * @throws IOException if the book could not be read or the files could not be written.
+     */
+    public static void pack(Path bookDirectory, String entryPrefix, List<Path> targets,
+                            BiConsumer<Integer, Integer> progress) throws IOException {
+        PageStore store = PageStore.open(bookDirectory);
+        List<Source> sources = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(bookDirectory)) {
+            walk.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().endsWith(".tmp"))
+                    .filter(file -> !EXCLUDED_FILES.contains(file.getFileName().toString()))
+                    .filter(file -> !file.getParent().equals(bookDirectory) || PageStore.dayOf(file) == 0)
+                    .sorted()
+                    .forEach(file -> sources.add(new Source(
+                            entryPrefix + "/" + bookDirectory.relativize(file).toString().replace('\\', '/'),
+                            file, 0)));
+        }
+        // days without a page are written as blank pages, since older versions expect a file for every day
+        for (int day = 1; day <= Math.max(store.getLastDay(), daysInBook(bookDirectory)); day++) {
+            sources.add(new Source(entryPrefix + "/" + day + ".json", null, day));
+        }
+        if (sources.size() > 0xFFFF) {
+            throw new IOException("Too many files in " + bookDirectory);
+        }
+
+        List<Path> temps = new ArrayList<>();
+        Deque<Future<Entry>> inFlight = new ArrayDeque<>();
+        try (ExecutorService readers = Executors.newFixedThreadPool(READERS,
+                runnable -> Thread.ofPlatform().name("readsy-packager").daemon().unstarted(runnable))) {
+            for (Path target : targets) {
+                temps.add(BookUtils.createSibling(target));
+            }
+            try (OutputStream out = new TeeOutputStream(temps)) {
+                ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+                long offset = 0;
+                int next = 0;
+                for (int written = 0; written < sources.size(); written++) {
+                    while (next < sources.size() && inFlight.size() < MAX_IN_FLIGHT) {
+                        Source source = sources.get(next++);
+                        inFlight.add(readers.submit(() -> compress(store, source)));
+                    }
+                    Entry entry = await(inFlight.remove());
+                    if (offset > 0xFFFFFFFFL) {
+                        throw new IOException("Archive is too large.");
+                    }
+                    byte[] header = header(entry, LOCAL_HEADER_SIGNATURE, 0);
+                    out.write(header);
+                    out.write(entry.data());
+                    centralDirectory.write(header(entry, CENTRAL_HEADER_SIGNATURE, offset));
+                    offset += header.length + entry.data().length;
+                    progress.accept(written + 1, sources.size());
+                }
+                if (offset > 0xFFFFFFFFL) {
+                    throw new IOException("Archive is too large.");
+                }
+                ByteBuffer end = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt(END_SIGNATURE)
+                        .putShort((short) 0)
+                        .putShort((short) 0)
+                        .putShort((short) sources.size())
+                        .putShort((short) sources.size())
+                        .putInt(centralDirectory.size())
+                        .putInt((int) offset)
+                        .putShort((short) 0);
+                centralDirectory.writeTo(out);
+                out.write(end.array());
+            } finally {
+                inFlight.forEach(future -> future.cancel(true));
+            }
+            for (int i = 0; i < targets.size(); i++) {
+                try {
+                    Files.move(temps.get(i), targets.get(i),
+                            StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temps.get(i), targets.get(i), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } finally {
+            for (Path temp : temps) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        logger.info("Wrote {} entries from {} to {}", sources.size(), bookDirectory, targets);
+    }
+
+    /*
+     * Get the number of days in a book: 365 for a book that can be read in any year, otherwise
+     * the number of days in the year the book is for.
+     */
+    private static int daysInBook(Path bookDirectory) throws IOException {
+        Path bookFile = bookDirectory.resolve("book.json");
+        if (!Files.exists(bookFile)) {
+            return 0;
+        }
+        Book book = MapperFactory.getBookReader().readValue(Files.readAllBytes(bookFile));
+        return book.getValidYear() == 0 ? 365 : Year.of(book.getValidYear()).length();
+    }
+
+    private static Entry compress(PageStore store, Source source) throws IOException {
+        byte[] content;
+        Instant modifiedTime;
+        if (source.file() == null) {
+            content = MapperFactory.getPageWriter().writeValueAsBytes(store.readPage(source.day()));
+            modifiedTime = Instant.now();
+        } else {
+            content = Files.readAllBytes(source.file());
+            modifiedTime = Files.getLastModifiedTime(source.file()).toInstant();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(content);
+
+        LocalDateTime modified = LocalDateTime.ofInstant(modifiedTime, ZoneId.systemDefault());
+        if (modified.getYear() < 1980) {
+            modified = LocalDateTime.of(1980, 1, 1, 0, 0);
+        }
+        short time = (short) ((modified.getHour() << 11) | (modified.getMinute() << 5) | (modified.getSecond() / 2));
+        short date = (short) (((modified.getYear() - 1980) << 9) | (modified.getMonthValue() << 5) | modified.getDayOfMonth());
+
+        byte[] data = content;
+        short method = STORED;
+        if (!COMPRESSED_EXTENSIONS.contains(extension(source.name()))) {
+            byte[] deflated = deflate(content);
+            if (deflated.length < content.length) {
+                data = deflated;
+                method = DEFLATED;
+            }
+        }
+        return new Entry(source.name().getBytes(StandardCharsets.UTF_8), method, time, date,
+                crc.getValue(), content.length, data);
+    }
+
+    private static byte[] deflate(byte[] content) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 2 + 64);
+            byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /*
+     * Build a local file header, or a central directory header when the signature says so.
+     */
+    private static byte[] header(Entry entry, int signature, long offset) {
+        boolean central = signature == CENTRAL_HEADER_SIGNATURE;
+        ByteBuffer header = ByteBuffer.allocate((central ? 46 : 30) + entry.name().length)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(signature);
+        if (central) {
+            header.putShort(VERSION);
+        }
+        header.putShort(VERSION)
+                .putShort(UTF8_FLAG)
+                .putShort(entry.method())
+                .putShort(entry.time())
+                .putShort(entry.date())
+                .putInt((int) entry.crc())
+                .putInt(entry.data().length)
+                .putInt(entry.size())
+                .putShort((short) entry.name().length)
+                .putShort((short) 0);
+        if (central) {
+            header.putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putInt(0)
+                    .putInt((int) offset);
+        }
+        return header.put(entry.name()).array();
+    }
+
+    private static Entry await(Future<Entry> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing archive.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw new IOException("Error compressing file.", e.getCause());
+        }
+    }
+
+    private static String extension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    /* something to write to the archive: a file, or the page for a day if there is no file */
+    private record Source(String name, Path file, int day) {
+    }
+
+    /* an entry ready to be written, with its data stored or deflated */
+    private record Entry(byte[] name, short method, short time, short date, long crc, int size, byte[] data) {
+    }
+
+    /* writes the same bytes to several files */
+    private static class TeeOutputStream extends OutputStream {
+        private final List<OutputStream> outs = new ArrayList<>();
+
+        TeeOutputStream(List<Path> files) throws IOException {
+            try {
+                for (Path file : files) {
+                    outs.add(new BufferedOutputStream(Files.newOutputStream(file)));
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            for (OutputStream out : outs) {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            for (OutputStream out : outs) {
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            for (OutputStream out : outs) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOException failure = null;
+            for (OutputStream out : outs) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
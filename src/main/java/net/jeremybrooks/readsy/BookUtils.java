@@ -25,10 +25,15 @@ import net.jeremybrooks.readsy.model.Book;
 
 import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -41,14 +46,11 @@ public class BookUtils {
      * @return number of days in the reading year, inclusive of start and end days.
      */
     public static int getDaysInReadingYear(Book book) {
-        LocalDate start = LocalDate.parse(book.getReadingStartDate(), Formatters.shortISOFormatter);
-        LocalDate end = LocalDate.parse(book.getReadingEndDate(), Formatters.shortISOFormatter);
-        return Math.toIntExact(ChronoUnit.DAYS.between(start, end)) + 1;
+        return ReadingCalendar.daysInRange(book.getReadingStartEpochDay(), book.getReadingEndEpochDay());
     }
 
     public static int getDayOfReadingYear(Book book) {
-        return getDayOfReadingYear(LocalDate.parse(book.getReadingStartDate(), Formatters.shortISOFormatter),
-                book.getPageDate());
+        return ReadingCalendar.dayOfReadingYear(book.getReadingStartEpochDay(), book.getPageDate().toEpochDay());
     }
 
     /**
@@ -56,28 +58,15 @@ public class BookUtils {
      * <p>
      * This will calculate the day of the reading year, that is, the year beginning on the
      * date the book reading started. If a book was started on February 1st, and the
-     * current date is February 3rd, this will return 3.
+     * current date is February 3rd, this will return 3. Reading years that span more
+     * than one calendar year boundary are counted from the start date as well.
      *
      * @param currentDate the current date to use.
      * @param startDate   the date reading started.
      * @return day of the reading year relative to the current date.
      */
     public static int getDayOfReadingYear(LocalDate startDate, LocalDate currentDate) {
-        int readingStartDay = startDate.getDayOfYear();
-        int dayOfCalendarYear = currentDate.getDayOfYear();
-        int dayOfReadingYear;
-        if (currentDate.getYear() == startDate.getYear()) {
-            dayOfReadingYear = dayOfCalendarYear - readingStartDay;
-        } else {
-            // year has wrapped around,
-            // so calculate days from reading start date to end of that year
-            LocalDate endOfYear = LocalDate.of(startDate.getYear(), 12, 31);
-            dayOfReadingYear = endOfYear.getDayOfYear() - readingStartDay;
-
-            // now add days of the next year
-            dayOfReadingYear += dayOfCalendarYear;
-        }
-        return dayOfReadingYear + 1;
+        return ReadingCalendar.dayOfReadingYear(startDate.toEpochDay(), currentDate.toEpochDay());
     }
 
     /**
@@ -105,15 +94,12 @@ public class BookUtils {
      * the page date is after startDate and before endDate.
      */
     public static boolean isPageDateInReadingRange(LocalDate pageDate, LocalDate startDate, LocalDate endDate) {
-        return pageDate.isEqual(startDate) ||
-                pageDate.isEqual(endDate) ||
-                (pageDate.isAfter(startDate) && pageDate.isBefore(endDate));
+        return ReadingCalendar.isInRange(pageDate.toEpochDay(), startDate.toEpochDay(), endDate.toEpochDay());
     }
 
     public static boolean isPageDateInReadingRange(Book book) {
-        return isPageDateInReadingRange(book.getPageDate(),
-                LocalDate.parse(book.getReadingStartDate(), Formatters.shortISOFormatter),
-                LocalDate.parse(book.getReadingEndDate(), Formatters.shortISOFormatter));
+        return ReadingCalendar.isInRange(book.getPageDate().toEpochDay(),
+                book.getReadingStartEpochDay(), book.getReadingEndEpochDay());
     }
 
 
@@ -152,4 +138,62 @@ public class BookUtils {
             }
         }
     }
+
+    /**
+     * Write a file so that readers see either the old content or the new content, never a partial file.
+     * <p>
+     * The content is written to a new temporary file in the same directory, which is then renamed over the target.
+     * The file keeps the permissions of the file it replaces; a new file gets the same permissions as any other
+     * file created by readsy.
+     *
+     * @param target  the file to write.
+     * @param content the new content of the file.
+     * @throws IOException if the file could not be written.
+     */
+    public static void writeAtomically(Path target, byte[] content) throws IOException {
+        Path temp = createSibling(target);
+        try {
+            Files.write(temp, content);
+            copyPermissions(target, temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Create a new, empty temporary file next to a file.
+     * Unlike {@link Files#createTempFile}, the file gets the default permissions rather than
+     * being readable by the owner only, so it can be renamed over the file it is next to.
+     *
+     * @param target the file the temporary file is for.
+     * @return the new file, named after the target and ending in .tmp.
+     * @throws IOException if the file could not be created.
+     */
+    static Path createSibling(Path target) throws IOException {
+        while (true) {
+            Path sibling = target.resolveSibling(
+                    target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                return Files.createFile(sibling);
+            } catch (FileAlreadyExistsException e) {
+                // try another name
+            }
+        }
+    }
+
+    /* give a file the POSIX permissions of another file, if there is one and the file system has them */
+    private static void copyPermissions(Path from, Path to) throws IOException {
+        if (Files.getFileStore(to).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            try {
+                Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+            } catch (NoSuchFileException e) {
+                // a new file, keep the default permissions
+            }
+        }
+    }
 }
@@ -32,6 +32,8 @@ public class Constants {
   /** Property that stores the location of books. */
   public static final String READSY_CONFIG_DIR = System.getProperty("user.home") + File.separator + ".readsy";
   public static final String READSY_CONFIG_FILE = READSY_CONFIG_DIR + File.separator + "ReadsyConfig.json";
+  public static final String READSY_LIBRARY_SNAPSHOT = READSY_CONFIG_DIR + File.separator + "library.snapshot";
+  public static final String READSY_CDS_ARCHIVE = READSY_CONFIG_DIR + File.separator + "readsy.jsa";
 
   public static final String HOME_PAGE = "https://jeremybrooks.net/readsy";
   public static final String VERSION_URL = HOME_PAGE + "/VERSION";
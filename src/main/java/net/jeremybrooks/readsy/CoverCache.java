@@ -0,0 +1,323 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import javafx.scene.image.Image;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A bounded, least recently used cache of book cover thumbnails.
+ * <p>
+ * Covers are keyed by book directory. Getting a cover never touches the file system on
+ * the calling thread, so list cells can ask for covers as often as they are rendered. A
+ * cover that is not cached is looked up on a background thread; until then the
+ * placeholder is returned, and the listener set with {@link #setOnCoverLoaded(Consumer)}
+ * is called once the cover is known. The modified
+ * time of each cover file is remembered, and {@link #validate(Collection)} drops covers
+ * whose file has been replaced or removed; the {@link LibraryIndex} calls it whenever
+ * the library is refreshed.
+ * </p>
+ * <p>
+ * Images are decoded in the background at thumbnail size, and books without a cover
+ * share a single placeholder image. The size of the cache is measured in bytes of
+ * decoded pixels.
+ * </p>
+ */
+public class CoverCache {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** Name of the cover image in a book directory. */
+    public static final String COVER_FILE_NAME = "cover.png";
+
+    /** Default maximum size of the cache, in bytes. */
+    public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+    private static final String PLACEHOLDER = "/images/emptycover.png";
+
+    private final double width;
+    private final double height;
+    private final long maxBytes;
+    private final Function<String, Image> imageLoader;
+    private final Executor loader;
+    private final Map<Path, Cover> covers = new LinkedHashMap<>(64, 0.75f, true);
+    private Image placeholder;
+    private long bytes;
+    private Consumer<Path> onCoverLoaded = bookDirectory -> { };
+
+    /**
+     * Create a cache with the default maximum size.
+     *
+     * @param width  thumbnail width.
+     * @param height thumbnail height.
+     */
+    public CoverCache(double width, double height) {
+        this(width, height, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Create a cache.
+     *
+     * @param width    thumbnail width.
+     * @param height   thumbnail height.
+     * @param maxBytes maximum number of bytes of decoded images to keep in memory.
+     */
+    public CoverCache(double width, double height, long maxBytes) {
+        this(width, height, maxBytes, null, Executors.newSingleThreadExecutor(
+                runnable -> Thread.ofPlatform().name("readsy-cover-loader").daemon().unstarted(runnable)));
+    }
+
+    /*
+     * Create a cache that loads images with the given function and looks up covers with
+     * the given executor, for testing without the JavaFX toolkit.
+     */
+    CoverCache(double width, double height, long maxBytes, Function<String, Image> imageLoader, Executor loader) {
+        this.width = width;
+        this.height = height;
+        this.maxBytes = maxBytes;
+        this.imageLoader = imageLoader == null ? this::loadImage : imageLoader;
+        this.loader = loader;
+    }
+
+    /**
+     * Get the cover for a book.
+     * <p>
+     * If the cover is not cached, the placeholder is returned and the cover is looked up
+     * in the background. When it has been found, the cover loaded listener is called and
+     * the next call returns the cover, which is decoded in the background and will be
+     * empty until decoding finishes. Books without a cover get the shared placeholder image.
+     * </p>
+     *
+     * @param bookDirectory the directory containing the book.
+     * @return the cover image, or the placeholder.
+     */
+    public Image getCover(Path bookDirectory) {
+        Cover pending;
+        synchronized (this) {
+            Cover cover = covers.get(bookDirectory);
+            if (cover != null) {
+                return cover.image();
+            }
+            pending = new Cover(getPlaceholder(), null, true);
+            put(bookDirectory, pending);
+        }
+        loader.execute(() -> load(bookDirectory, pending));
+        synchronized (this) {
+            Cover cover = covers.get(bookDirectory);
+            return cover == null ? pending.image() : cover.image();
+        }
+    }
+
+    /**
+     * Set the listener called when a cover that was not cached has been found.
+     * The listener is called on a background thread.
+     *
+     * @param onCoverLoaded called with the directory of the book whose cover can now be shown.
+     */
+    public void setOnCoverLoaded(Consumer<Path> onCoverLoaded) {
+        this.onCoverLoaded = onCoverLoaded;
+    }
+
+    /**
+     * Get the shared image used for books without a cover.
+     *
+     * @return the placeholder image, or null if it could not be loaded.
+     */
+    public synchronized Image getPlaceholder() {
+        if (placeholder == null) {
+            try {
+                placeholder = imageLoader.apply(PLACEHOLDER);
+            } catch (Exception e) {
+                logger.error("Could not find image at {}", PLACEHOLDER, e);
+            }
+        }
+        return placeholder;
+    }
+
+    /**
+     * Remove the covers of books whose cover file has been added, replaced or removed
+     * since the cover was cached. This reads the file system, so it should not be called
+     * on the JavaFX application thread.
+     *
+     * @param bookDirectories the book directories to check.
+     * @return the book directories whose cover was removed.
+     */
+    public Set<Path> validate(Collection<Path> bookDirectories) {
+        Map<Path, Cover> cached = new LinkedHashMap<>();
+        synchronized (this) {
+            for (Path bookDirectory : bookDirectories) {
+                Cover cover = covers.get(bookDirectory);
+                if (cover != null) {
+                    cached.put(bookDirectory, cover);
+                }
+            }
+        }
+        Set<Path> stale = new HashSet<>();
+        cached.forEach((bookDirectory, cover) -> {
+            // a cover that is still being looked up reads the file anyway
+            if (!cover.pending() && !Objects.equals(cover.modified(), modifiedTime(bookDirectory.resolve(COVER_FILE_NAME)))) {
+                stale.add(bookDirectory);
+            }
+        });
+        synchronized (this) {
+            for (Path bookDirectory : stale) {
+                // leave a cover that was loaded again in the meantime
+                if (covers.remove(bookDirectory, cached.get(bookDirectory))) {
+                    bytes -= weight(cached.get(bookDirectory));
+                }
+            }
+        }
+        if (!stale.isEmpty()) {
+            logger.debug("Covers changed in {}", stale);
+        }
+        return stale;
+    }
+
+    /**
+     * Remove the covers of every cached book whose cover file has changed.
+     *
+     * @return the book directories whose cover was removed.
+     * @see #validate(Collection)
+     */
+    public Set<Path> validateAll() {
+        List<Path> bookDirectories;
+        synchronized (this) {
+            bookDirectories = new ArrayList<>(covers.keySet());
+        }
+        return validate(bookDirectories);
+    }
+
+    /**
+     * Remove the cover for a book from the cache.
+     *
+     * @param bookDirectory the directory containing the book.
+     */
+    public synchronized void invalidate(Path bookDirectory) {
+        Cover cover = covers.remove(bookDirectory);
+        if (cover != null) {
+            bytes -= weight(cover);
+        }
+    }
+
+    /**
+     * Get the number of covers in the cache.
+     *
+     * @return number of cached covers.
+     */
+    public synchronized int size() {
+        return covers.size();
+    }
+
+    private synchronized void put(Path bookDirectory, Cover cover) {
+        Cover old = covers.put(bookDirectory, cover);
+        if (old != null) {
+            bytes -= weight(old);
+        }
+        bytes += weight(cover);
+        Iterator<Cover> it = covers.values().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Cover eldest = it.next();
+            if (eldest == cover) {
+                break;
+            }
+            bytes -= weight(eldest);
+            it.remove();
+        }
+    }
+
+    /* find the cover file of a book and start decoding it, replacing the pending entry */
+    private void load(Path bookDirectory, Cover pending) {
+        Path imagePath = bookDirectory.resolve(COVER_FILE_NAME);
+        FileTime modified = modifiedTime(imagePath);
+        Cover cover = modified == null ?
+                new Cover(pending.image(), null, false) :
+                new Cover(imageLoader.apply(imagePath.toUri().toString()), modified, false);
+        synchronized (this) {
+            // the cover was invalidated or evicted while it was being looked up
+            if (covers.get(bookDirectory) != pending) {
+                return;
+            }
+            put(bookDirectory, cover);
+        }
+        if (modified != null) {
+            onCoverLoaded.accept(bookDirectory);
+        }
+    }
+
+    private Image loadImage(String url) {
+        if (url.equals(PLACEHOLDER)) {
+            return new Image(PLACEHOLDER, width, height, true, true);
+        }
+        Image image = new Image(url, width, height, true, true, true);
+        image.exceptionProperty().addListener((obs, old, e) -> {
+            if (e != null) {
+                logger.error("Error loading image from {}", url, e);
+            }
+        });
+        return image;
+    }
+
+    /* get the modified time of a cover file, or null if there is no cover */
+    private static FileTime modifiedTime(Path imagePath) {
+        try {
+            return Files.getLastModifiedTime(imagePath);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (Exception e) {
+            logger.error("Error reading cover {}", imagePath, e);
+            return null;
+        }
+    }
+
+    /*
+     * Every cover is decoded to at most the thumbnail size, at four bytes per pixel.
+     * The placeholder is shared, so it is not counted.
+     */
+    private long weight(Cover cover) {
+        return cover.modified() == null ? 0 : (long) Math.ceil(width) * (long) Math.ceil(height) * 4;
+    }
+
+    /*
+     * A cached image, with the modified time of its file, or null for the placeholder.
+     * A pending cover holds the placeholder while the file is being looked up.
+     */
+    private record Cover(Image image, FileTime modified, boolean pending) {
+    }
+}
@@ -0,0 +1,611 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import net.jeremybrooks.readsy.model.Book;
+import net.jeremybrooks.readsy.workers.BookWriteQueue;
+import net.jeremybrooks.readsy.workers.LibraryWatcher;
+import net.jeremybrooks.readsy.workers.RefreshBooksWorker;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * An index of the books in the library, keyed by book directory.
+ * <p>
+ * The index owns the list of books shown in the library view. Changes are applied
+ * one book directory at a time, so changing a single book does not require the
+ * whole library to be scanned and parsed again. A {@link LibraryWatcher} keeps the
+ * index current when books are changed on disk.
+ * </p>
+ * <p>
+ * Methods that change the index must be called on the JavaFX application thread.
+ * Books are loaded on a background thread, one refresh at a time. Changes to books are
+ * written in the background by a {@link BookWriteQueue}.
+ * </p>
+ * <p>
+ * Books that still keep their pages in loose files, from before pages were packed,
+ * are packed on another background thread the first time a refresh sees them.
+ * </p>
+ */
+public final class LibraryIndex implements Closeable {
+    private static final Logger logger = LogManager.getLogger();
+    private static final long SAVE_DELAY_MILLIS = 500;
+    private static final long CLOSE_WAIT_SECONDS = 5;
+
+    private final Path bookDirectory;
+    private final Path snapshotFile;
+    private final ObservableList<Book> books = FXCollections.observableArrayList();
+    private final Map<Path, Book> index = new ConcurrentHashMap<>();
+    private final Map<Path, LibrarySnapshot.Entry> persisted = new ConcurrentHashMap<>();
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(
+            runnable -> Thread.ofPlatform().name("readsy-library-loader").daemon().unstarted(runnable));
+    private final ExecutorService packer = Executors.newSingleThreadExecutor(
+            runnable -> Thread.ofPlatform().name("readsy-page-packer").daemon().unstarted(runnable));
+    private final Set<Path> packChecked = ConcurrentHashMap.newKeySet();
+    private final BookWriteQueue writeQueue = new BookWriteQueue(SAVE_DELAY_MILLIS, this::saved);
+    private LibraryWatcher watcher;
+    private CoverCache coverCache;
+    private SearchIndex searchIndex;
+    private byte[] lastSnapshot;
+    private volatile boolean closed;
+    private BiConsumer<Book, Exception> onSaveError = (book, e) -> { };
+
+    /**
+     * Create a new, empty index for the books in a directory.
+     *
+     * @param bookDirectory the directory containing the book directories.
+     */
+    public LibraryIndex(Path bookDirectory) {
+        this(bookDirectory, null);
+    }
+
+    /**
+     * Create a new, empty index for the books in a directory, kept in a snapshot file.
+     *
+     * @param bookDirectory the directory containing the book directories.
+     * @param snapshotFile  file the index is saved to after it changes, or null for no snapshot.
+     * @see LibrarySnapshot
+     */
+    public LibraryIndex(Path bookDirectory, Path snapshotFile) {
+        this.bookDirectory = bookDirectory;
+        this.snapshotFile = snapshotFile;
+    }
+
+    public Path getBookDirectory() {
+        return bookDirectory;
+    }
+
+    /**
+     * Get the list of books, sorted by book directory.
+     *
+     * @return list of books in the library.
+     */
+    public ObservableList<Book> getBooks() {
+        return books;
+    }
+
+    /**
+     * Get the directories of all books currently in the index.
+     *
+     * @return copy of the set of book directories.
+     */
+    public Set<Path> getBookDirectories() {
+        return new HashSet<>(index.keySet());
+    }
+
+    public Book getBook(Path bookDirectory) {
+        return index.get(bookDirectory);
+    }
+
+    /**
+     * Get the last modified time of the book.json file that was loaded for a book directory.
+     *
+     * @param bookDirectory the book directory.
+     * @return modified time when the book was loaded, or null if the book is not in the index.
+     */
+    public FileTime getModifiedTime(Path bookDirectory) {
+        LibrarySnapshot.Entry entry = persisted.get(bookDirectory);
+        return entry == null ? null : entry.modifiedTime();
+    }
+
+    /**
+     * Add or update the book for a directory.
+     * <p>
+     * If there is already a book for the directory, the existing instance is updated
+     * so that the current page date and list selection are preserved. The list is only
+     * notified if something actually changed.
+     * </p>
+     *
+     * @param bookDirectory the book directory.
+     * @param book          the book loaded from the directory.
+     * @param modifiedTime  last modified time of the book.json file that was loaded.
+     */
+    public void put(Path bookDirectory, Book book, FileTime modifiedTime) {
+        persisted.put(bookDirectory, new LibrarySnapshot.Entry(bookDirectory, copyOf(book), modifiedTime));
+        Book existing = index.get(bookDirectory);
+        if (existing == null) {
+            index.put(bookDirectory, book);
+            books.add(insertionPoint(bookDirectory), book);
+            if (searchIndex != null) {
+                searchIndex.update(Set.of(bookDirectory));
+            }
+        } else if (merge(existing, book)) {
+            int position = books.indexOf(existing);
+            if (position >= 0) {
+                books.set(position, existing);
+            }
+        }
+    }
+
+    /**
+     * Remove the book for a directory.
+     *
+     * @param bookDirectory the book directory.
+     */
+    public void remove(Path bookDirectory) {
+        persisted.remove(bookDirectory);
+        Book existing = index.remove(bookDirectory);
+        if (existing != null) {
+            books.remove(existing);
+        }
+        if (searchIndex != null) {
+            searchIndex.remove(bookDirectory);
+        }
+    }
+
+    /**
+     * Remove every book whose directory is not in the supplied collection.
+     *
+     * @param bookDirectories the book directories to keep.
+     */
+    public void retainAll(Collection<Path> bookDirectories) {
+        for (Path dir : getBookDirectories()) {
+            if (!bookDirectories.contains(dir)) {
+                remove(dir);
+            }
+        }
+    }
+
+    /**
+     * Tell the list that a book has been changed in memory so that views showing it are refreshed.
+     *
+     * @param book the changed book.
+     */
+    public void changed(Book book) {
+        int position = books.indexOf(book);
+        if (position >= 0) {
+            books.set(position, book);
+        }
+    }
+
+    /**
+     * Save a book that has been changed in memory.
+     * <p>
+     * The list is notified right away, and the book.json file is written in the background
+     * a short time later. Saving the same book again before it is written replaces the
+     * pending write.
+     * </p>
+     *
+     * @param book the changed book.
+     * @throws IOException if the book could not be serialized.
+     */
+    public void save(Book book) throws IOException {
+        writeQueue.save(Paths.get(book.getBookPath()), MapperFactory.getBookWriter().writeValueAsBytes(book));
+        changed(book);
+    }
+
+    /**
+     * Write any books waiting to be saved.
+     */
+    public void flush() {
+        writeQueue.flush();
+    }
+
+    /**
+     * Set the handler called on the JavaFX application thread if a book could not be saved.
+     *
+     * @param onSaveError handler for save errors.
+     */
+    public void setOnSaveError(BiConsumer<Book, Exception> onSaveError) {
+        this.onSaveError = onSaveError;
+    }
+
+    /**
+     * Fill the index from the snapshot file, if there is a usable one.
+     * <p>
+     * This should be called on an empty index, before the first refresh. The refresh
+     * then only parses books that have changed since the snapshot was written.
+     * </p>
+     *
+     * @return true if any books were loaded from the snapshot.
+     */
+    public boolean loadSnapshot() {
+        if (snapshotFile == null || !index.isEmpty()) {
+            return false;
+        }
+        return loadSnapshot(LibrarySnapshot.read(snapshotFile, bookDirectory));
+    }
+
+    /**
+     * Fill the index from snapshot entries that have already been read.
+     * <p>
+     * This lets the snapshot file be read on a background thread, while the index itself
+     * is filled on the JavaFX application thread. It should be called on an empty index,
+     * before the first refresh.
+     * </p>
+     *
+     * @param snapshot the entries read from the snapshot file.
+     * @return true if any books were loaded from the snapshot.
+     * @see LibrarySnapshot#read(Path, Path)
+     */
+    public boolean loadSnapshot(List<LibrarySnapshot.Entry> snapshot) {
+        if (!index.isEmpty()) {
+            return false;
+        }
+        List<LibrarySnapshot.Entry> entries = new ArrayList<>(snapshot);
+        // the snapshot is written in list order, so this is normally already sorted
+        entries.sort(Comparator.comparing(LibrarySnapshot.Entry::directory));
+        List<Book> loaded = new ArrayList<>(entries.size());
+        for (LibrarySnapshot.Entry entry : entries) {
+            Book book = copyOf(entry.book());
+            if (index.putIfAbsent(entry.directory(), book) == null) {
+                persisted.put(entry.directory(), entry);
+                loaded.add(book);
+            }
+        }
+        books.setAll(loaded);
+        if (searchIndex != null) {
+            searchIndex.update(getBookDirectories());
+        }
+        logger.info("Loaded {} books from {}", loaded.size(), snapshotFile);
+        return !loaded.isEmpty();
+    }
+
+    /*
+     * Queue the index to be written to the snapshot file.
+     */
+    private void saveSnapshot() {
+        // a closed index may be out of date, and must not overwrite the snapshot of the index replacing it
+        if (snapshotFile == null || closed) {
+            return;
+        }
+        try {
+            byte[] snapshot = LibrarySnapshot.toBytes(bookDirectory, snapshotEntries());
+            if (!Arrays.equals(snapshot, lastSnapshot)) {
+                writeQueue.save(snapshotFile, snapshot);
+                lastSnapshot = snapshot;
+            }
+        } catch (IOException e) {
+            logger.warn("Could not save library snapshot {}", snapshotFile, e);
+        }
+    }
+
+    /*
+     * The books to put in the snapshot.
+     * Books are saved as they were last loaded from or written to disk, with the modified
+     * time of that file, and not as they are in memory. A change that is still waiting to
+     * be written is left out, so the snapshot never claims a change that is not on disk.
+     */
+    List<LibrarySnapshot.Entry> snapshotEntries() {
+        List<LibrarySnapshot.Entry> entries = new ArrayList<>(books.size());
+        for (Book book : books) {
+            LibrarySnapshot.Entry entry = persisted.get(directoryOf(book));
+            if (entry != null && entry.directory().startsWith(bookDirectory)
+                    && !entry.directory().equals(bookDirectory)) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Set the search index to keep up to date with the books in the library.
+     * <p>
+     * Books already in the index are indexed straight away, books from other libraries
+     * are removed, and from then on books are indexed as they are added and removed. The
+     * index is not updated when a book.json changes, as that does not change the pages.
+     * </p>
+     *
+     * @param searchIndex the search index, or null to not keep one.
+     */
+    public void setSearchIndex(SearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+        if (searchIndex != null) {
+            Set<Path> bookDirectories = getBookDirectories();
+            searchIndex.retainAll(bookDirectories);
+            searchIndex.update(bookDirectories);
+        }
+    }
+
+    /**
+     * Set the cache of book covers to check when books are refreshed.
+     * Books are updated in the list when the cache has found their cover, so it is shown.
+     *
+     * @param coverCache the cover cache, or null to not check covers.
+     */
+    public void setCoverCache(CoverCache coverCache) {
+        this.coverCache = coverCache;
+        if (coverCache != null) {
+            coverCache.setOnCoverLoaded(dir -> Platform.runLater(() -> {
+                Book book = index.get(dir);
+                if (book != null && !closed) {
+                    changed(book);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Start watching the book directory for changes.
+     */
+    public void startWatching() {
+        if (watcher == null) {
+            try {
+                // the watcher calls back on its own thread, and the index is changed on the JavaFX thread
+                watcher = new LibraryWatcher(bookDirectory,
+                        changed -> Platform.runLater(() -> refresh(changed)), this::isCurrent);
+                watcher.start();
+            } catch (Exception e) {
+                logger.warn("Could not watch {} for changes. Changes made outside of readsy will not be seen.",
+                        bookDirectory, e);
+            }
+        }
+    }
+
+    /**
+     * Reload the books in the given directories.
+     * <p>
+     * If the collection contains the library directory itself, the whole library is scanned.
+     * Only books whose book.json has changed since it was last loaded are parsed again.
+     * </p>
+     * <p>
+     * The books are loaded in the background. The returned future is completed on the
+     * JavaFX application thread after every change has been applied to the list.
+     * </p>
+     * <p>
+     * If the index has a {@link CoverCache}, the covers of the refreshed books are checked
+     * as well, and books whose cover file changed are updated in the list so the new cover
+     * is shown.
+     * </p>
+     *
+     * @param bookDirectories the book directories that have changed.
+     * @return future that completes when the refresh has been applied, or right away if
+     * the index has been closed.
+     */
+    public CompletableFuture<Void> refresh(Collection<Path> bookDirectories) {
+        if (closed) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        RefreshBooksWorker worker = new RefreshBooksWorker(this, bookDirectories);
+        CoverCache covers = coverCache;
+        loader.execute(() -> {
+            Set<Path> staleCovers = new HashSet<>();
+            try {
+                worker.run();
+                if (covers != null) {
+                    staleCovers.addAll(bookDirectories.contains(bookDirectory) ?
+                            covers.validateAll() : covers.validate(bookDirectories));
+                }
+            } finally {
+                Platform.runLater(() -> {
+                    if (!closed) {
+                        // show the new covers of books that are still in the list
+                        for (Path dir : staleCovers) {
+                            Book book = index.get(dir);
+                            if (book != null) {
+                                changed(book);
+                            }
+                        }
+                        saveSnapshot();
+                        packLoosePages(bookDirectories.contains(bookDirectory) ?
+                                getBookDirectories() : bookDirectories);
+                    }
+                    done.complete(null);
+                });
+            }
+        });
+        return done;
+    }
+
+    /*
+     * Pack the pages of books that still keep them in loose files, in the background.
+     * Each book is only checked once, and packing holds the book's lock, so it does not
+     * run at the same time as anything else reading or writing the book's files.
+     */
+    Future<?> packLoosePages(Collection<Path> bookDirectories) {
+        List<Path> unchecked = bookDirectories.stream()
+                .filter(dir -> index.containsKey(dir) && packChecked.add(dir))
+                .sorted()
+                .toList();
+        if (unchecked.isEmpty() || closed) {
+            return CompletableFuture.completedFuture(null);
+        }
+        SearchIndex search = searchIndex;
+        return packer.submit(() -> {
+            for (Path dir : unchecked) {
+                if (closed) {
+                    return;
+                }
+                try {
+                    if (PageStore.packLoosePages(dir) && search != null) {
+                        // the pages are the same, but the search index is saved with their fingerprint
+                        search.update(Set.of(dir));
+                    }
+                } catch (Exception e) {
+                    logger.warn("Could not pack the pages of {}", dir, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stop watching the library, stop any refresh that is running and write any books
+     * waiting to be saved.
+     * <p>
+     * This waits for a running refresh, and for a book that is being packed, to stop, so
+     * they cannot change the index, the snapshot or the book after it has been closed.
+     * </p>
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+        loader.shutdownNow();
+        try {
+            if (!loader.awaitTermination(CLOSE_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Library refresh did not stop after {} seconds", CLOSE_WAIT_SECONDS);
+            }
+            // packing is not interrupted, so a book is never left half packed
+            packer.shutdown();
+            if (!packer.awaitTermination(CLOSE_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("Packing pages did not stop after {} seconds", CLOSE_WAIT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeQueue.close();
+    }
+
+    /*
+     * Called by the write queue after a book.json file is written, while the book is locked.
+     * Read back what was written and its modified time, so the watcher does not load our
+     * own write again, and save the snapshot with the book as written.
+     */
+    private void saved(Path bookPath, Exception error) {
+        if (bookPath.equals(snapshotFile)) {
+            return;
+        }
+        Path bookDirectory = bookPath.getParent();
+        if (error == null) {
+            try {
+                if (index.containsKey(bookDirectory)) {
+                    FileTime modifiedTime = Files.getLastModifiedTime(bookPath);
+                    Book written = MapperFactory.getBookReader().readValue(bookPath.toFile());
+                    written.setBookPath(bookPath.toString());
+                    persisted.put(bookDirectory, new LibrarySnapshot.Entry(bookDirectory, written, modifiedTime));
+                    if (snapshotFile != null) {
+                        Platform.runLater(this::saveSnapshot);
+                    }
+                }
+            } catch (IOException e) {
+                logger.debug("Could not read back {}", bookPath, e);
+            }
+        } else {
+            Book book = index.get(bookDirectory);
+            if (book != null) {
+                Platform.runLater(() -> onSaveError.accept(book, error));
+            }
+        }
+    }
+
+    /* determine if the book.json in a directory is the one that was loaded or last written */
+    private boolean isCurrent(Path bookDirectory) {
+        FileTime modifiedTime = getModifiedTime(bookDirectory);
+        try {
+            return modifiedTime != null &&
+                    modifiedTime.equals(Files.getLastModifiedTime(bookDirectory.resolve("book.json")));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /* find where a book directory belongs so the list stays sorted */
+    private int insertionPoint(Path bookDirectory) {
+        int low = 0;
+        int high = books.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = directoryOf(books.get(mid)).compareTo(bookDirectory);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private static Path directoryOf(Book book) {
+        return Paths.get(book.getBookPath()).getParent();
+    }
+
+    private static Book copyOf(Book book) {
+        Book copy = new Book();
+        merge(copy, book);
+        return copy;
+    }
+
+    /* copy the persisted fields from source to target, returning true if anything changed */
+    private static boolean merge(Book target, Book source) {
+        boolean changed = !Objects.equals(target.getTitle(), source.getTitle()) ||
+                !Objects.equals(target.getShortTitle(), source.getShortTitle()) ||
+                !Objects.equals(target.getAuthor(), source.getAuthor()) ||
+                !Objects.equals(target.getVersion(), source.getVersion()) ||
+                target.getValidYear() != source.getValidYear() ||
+                !Objects.equals(target.getStatusFlags(), source.getStatusFlags()) ||
+                !Objects.equals(target.getReadingStartDate(), source.getReadingStartDate()) ||
+                !Objects.equals(target.getReadingEndDate(), source.getReadingEndDate()) ||
+                !Objects.equals(target.getBookPath(), source.getBookPath());
+        if (changed) {
+            target.setTitle(source.getTitle());
+            target.setShortTitle(source.getShortTitle());
+            target.setAuthor(source.getAuthor());
+            target.setVersion(source.getVersion());
+            target.setValidYear(source.getValidYear());
+            target.setStatusFlags(source.getStatusFlags());
+            target.setReadingStartDate(source.getReadingStartDate());
+            target.setReadingEndDate(source.getReadingEndDate());
+            target.setBookPath(source.getBookPath());
+        }
+        return changed;
+    }
+}
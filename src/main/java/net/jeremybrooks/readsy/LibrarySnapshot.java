@@ -0,0 +1,163 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Book;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact binary copy of the library index, so the book list can be shown at startup
+ * without reading every book.json file.
+ * <p>
+ * The snapshot holds the metadata and reading state of each book, with the modified
+ * time of the book.json file it came from. It is read with a single file read; the
+ * library is then scanned in the background as usual, and only books whose book.json
+ * has a different modified time are parsed again.
+ * </p>
+ * <p>
+ * A snapshot that is missing, damaged, or was written for a different library
+ * directory is ignored.
+ * </p>
+ */
+public class LibrarySnapshot {
+    private static final Logger logger = LogManager.getLogger();
+    private static final long MAGIC = 0x52445359534E4150L; // RDSYSNAP
+    private static final int VERSION = 1;
+
+    private LibrarySnapshot() {
+    }
+
+    /**
+     * A book in the snapshot.
+     *
+     * @param directory    the book directory.
+     * @param book         the book, with its book path set.
+     * @param modifiedTime modified time of the book.json file the book was loaded from.
+     */
+    public record Entry(Path directory, Book book, FileTime modifiedTime) {
+    }
+
+    /**
+     * Read a snapshot.
+     *
+     * @param file             the snapshot file.
+     * @param libraryDirectory the library directory the snapshot must have been written for.
+     * @return books in the snapshot, or an empty list if there is no usable snapshot.
+     */
+    public static List<Entry> read(Path file, Path libraryDirectory) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return List.of();
+        } catch (IOException e) {
+            logger.warn("Could not read library snapshot {}", file, e);
+            return List.of();
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readLong() != MAGIC || in.readInt() != VERSION
+                    || !in.readUTF().equals(libraryDirectory.toString())) {
+                return List.of();
+            }
+            int count = in.readInt();
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Path directory = libraryDirectory.resolve(in.readUTF());
+                FileTime modifiedTime = FileTime.from(Instant.ofEpochSecond(in.readLong(), in.readInt()));
+                Book book = new Book();
+                book.setTitle(readString(in));
+                book.setShortTitle(readString(in));
+                book.setAuthor(readString(in));
+                book.setVersion(readString(in));
+                book.setValidYear(in.readInt());
+                book.setStatusFlags(readString(in));
+                book.setReadingStartDate(readString(in));
+                book.setReadingEndDate(readString(in));
+                book.setBookPath(directory.resolve("book.json").toString());
+                entries.add(new Entry(directory, book, modifiedTime));
+            }
+            return entries;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring damaged library snapshot {}", file, e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Convert books to the snapshot format.
+     *
+     * @param libraryDirectory the library directory; every book directory must be inside it.
+     * @param entries          the books to write.
+     * @return the snapshot bytes.
+     * @throws IOException if the snapshot could not be written.
+     */
+    public static byte[] toBytes(Path libraryDirectory, List<Entry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + entries.size() * 256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(libraryDirectory.toString());
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                Book book = entry.book();
+                Instant modified = entry.modifiedTime().toInstant();
+                out.writeUTF(libraryDirectory.relativize(entry.directory()).toString());
+                out.writeLong(modified.getEpochSecond());
+                out.writeInt(modified.getNano());
+                writeString(out, book.getTitle());
+                writeString(out, book.getShortTitle());
+                writeString(out, book.getAuthor());
+                writeString(out, book.getVersion());
+                out.writeInt(book.getValidYear());
+                writeString(out, book.getStatusFlags());
+                writeString(out, book.getReadingStartDate());
+                writeString(out, book.getReadingEndDate());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -23,21 +23,83 @@ package net.jeremybrooks.readsy;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import net.jeremybrooks.readsy.model.Book;
+import net.jeremybrooks.readsy.model.Configuration;
+import net.jeremybrooks.readsy.model.Page;
 
 /**
  * A factory for ObjectMappers.
  * The factory ensures that created ObjectMapper objects have the
  * desired configuration.
+ * <p>
+ * Building an ObjectMapper is expensive, because Jackson has to build its serializers
+ * and deserializers again for every new mapper. For the model classes, use the shared
+ * readers and writers, which are immutable and safe to use from any thread.
+ * </p>
+ * <p>
+ * If the system property {@value #ACCELERATED_PROPERTY} is true, the shared readers and
+ * writers use the Blackbird module, which replaces reflection with generated accessors.
+ * </p>
  */
 public class MapperFactory {
 
+    /** System property that turns on the Blackbird module for the shared readers and writers. */
+    public static final String ACCELERATED_PROPERTY = "readsy.jackson.accelerated";
+
+    private static final ObjectMapper SHARED_MAPPER = getObjectMapper(Boolean.getBoolean(ACCELERATED_PROPERTY));
+    private static final ObjectReader BOOK_READER = SHARED_MAPPER.readerFor(Book.class);
+    private static final ObjectWriter BOOK_WRITER = SHARED_MAPPER.writerFor(Book.class);
+    private static final ObjectReader PAGE_READER = SHARED_MAPPER.readerFor(Page.class);
+    private static final ObjectWriter PAGE_WRITER = SHARED_MAPPER.writerFor(Page.class);
+    private static final ObjectReader CONFIGURATION_READER = SHARED_MAPPER.readerFor(Configuration.class);
+    private static final ObjectWriter CONFIGURATION_WRITER = SHARED_MAPPER.writerFor(Configuration.class);
+
     /**
      * Get an ObjectMapper object.
      * @return configured ObjectMapper.
      */
     public static ObjectMapper getObjectMapper() {
+        return getObjectMapper(false);
+    }
+
+    /**
+     * Get an ObjectMapper object.
+     * @param accelerated if true, register the Blackbird module.
+     * @return configured ObjectMapper.
+     */
+    public static ObjectMapper getObjectMapper(boolean accelerated) {
         ObjectMapper mapper = new ObjectMapper();
         mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        if (accelerated) {
+            mapper.registerModule(new BlackbirdModule());
+        }
         return mapper;
     }
+
+    public static ObjectReader getBookReader() {
+        return BOOK_READER;
+    }
+
+    public static ObjectWriter getBookWriter() {
+        return BOOK_WRITER;
+    }
+
+    public static ObjectReader getPageReader() {
+        return PAGE_READER;
+    }
+
+    public static ObjectWriter getPageWriter() {
+        return PAGE_WRITER;
+    }
+
+    public static ObjectReader getConfigurationReader() {
+        return CONFIGURATION_READER;
+    }
+
+    public static ObjectWriter getConfigurationWriter() {
+        return CONFIGURATION_WRITER;
+    }
 }
@@ -0,0 +1,258 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Page;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded, least recently used cache of pages read from books.
+ * <p>
+ * The size of the cache is measured in characters of page heading and text, so the
+ * heap used by the cache is capped no matter how long the pages are. Pages can be
+ * loaded in the background before they are needed, so that moving to the next or
+ * previous day is served from memory.
+ * </p>
+ * <p>
+ * Invalidating a book cancels the loads that are still running for it, and pages that
+ * were being read when the book was invalidated are not cached.
+ * </p>
+ */
+public class PageCache implements Closeable {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** Default maximum size of the cache, in characters. */
+    public static final long DEFAULT_MAX_CHARACTERS = 4 * 1024 * 1024;
+
+    private final long maxCharacters;
+    private final Map<Key, Page> pages = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<Key, Future<?>> loading = new HashMap<>();
+    private final Map<Path, PageStore> stores = new HashMap<>();
+    private final Map<Path, Integer> generations = new HashMap<>();
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(
+            runnable -> Thread.ofPlatform().name("readsy-page-prefetch").daemon().unstarted(runnable));
+    private long characters;
+
+    /**
+     * Create a cache with the default maximum size.
+     */
+    public PageCache() {
+        this(DEFAULT_MAX_CHARACTERS);
+    }
+
+    /**
+     * Create a cache.
+     *
+     * @param maxCharacters maximum number of heading and text characters to keep in memory.
+     */
+    public PageCache(long maxCharacters) {
+        this.maxCharacters = maxCharacters;
+    }
+
+    /**
+     * Get a page, reading it from the book if it is not in the cache.
+     *
+     * @param bookDirectory the directory containing the book.
+     * @param day           the day of the page to get.
+     * @return the page.
+     * @throws IOException if the page is not cached and could not be read.
+     */
+    public Page getPage(Path bookDirectory, int day) throws IOException {
+        Key key = new Key(bookDirectory, day);
+        int generation;
+        synchronized (this) {
+            Page page = pages.get(key);
+            if (page != null) {
+                return page;
+            }
+            generation = generation(bookDirectory);
+        }
+        Page page;
+        try {
+            page = store(bookDirectory, generation).readPage(day);
+        } catch (NoSuchFileException e) {
+            // the page file may have been removed since the book was opened
+            synchronized (this) {
+                stores.remove(bookDirectory);
+            }
+            page = store(bookDirectory, generation).readPage(day);
+        }
+        put(key, page, generation);
+        return page;
+    }
+
+    /**
+     * Load pages in the background if they are not already cached.
+     * Days that do not exist in the book are ignored.
+     *
+     * @param bookDirectory the directory containing the book.
+     * @param days          the days to load.
+     */
+    public void prefetch(Path bookDirectory, int... days) {
+        for (int day : days) {
+            Key key = new Key(bookDirectory, day);
+            synchronized (this) {
+                if (day < 1 || pages.containsKey(key) || loading.containsKey(key)) {
+                    continue;
+                }
+                int generation = generation(bookDirectory);
+                try {
+                    // the task removes itself from loading, which waits until it has been added
+                    loading.put(key, prefetcher.submit(() -> {
+                        try {
+                            put(key, store(bookDirectory, generation).readPage(day), generation);
+                        } catch (Exception e) {
+                            logger.debug("Could not prefetch day {} from {}", day, bookDirectory);
+                        } finally {
+                            synchronized (this) {
+                                loading.remove(key);
+                            }
+                        }
+                    }));
+                } catch (Exception e) {
+                    logger.debug("Not prefetching day {} from {}", day, bookDirectory);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove all pages for a book from the cache.
+     *
+     * @param bookDirectory the directory containing the book.
+     */
+    public synchronized void invalidate(Path bookDirectory) {
+        generations.merge(bookDirectory, 1, Integer::sum);
+        stores.remove(bookDirectory);
+        Iterator<Map.Entry<Key, Future<?>>> loads = loading.entrySet().iterator();
+        while (loads.hasNext()) {
+            Map.Entry<Key, Future<?>> load = loads.next();
+            if (load.getKey().bookDirectory().equals(bookDirectory)) {
+                load.getValue().cancel(true);
+                loads.remove();
+            }
+        }
+        Iterator<Map.Entry<Key, Page>> it = pages.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Page> entry = it.next();
+            if (entry.getKey().bookDirectory().equals(bookDirectory)) {
+                characters -= weight(entry.getValue());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Get the number of pages in the cache.
+     *
+     * @return number of cached pages.
+     */
+    public synchronized int size() {
+        return pages.size();
+    }
+
+    /**
+     * Get the size of the cached pages.
+     *
+     * @return number of heading and text characters in the cache.
+     */
+    public synchronized long characters() {
+        return characters;
+    }
+
+    @Override
+    public void close() {
+        prefetcher.shutdownNow();
+        // let a page that is being read finish, so the book directory can be removed
+        try {
+            prefetcher.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Get the page store for a book, opening it if needed.
+     * The store is only kept if the book has not been invalidated since the read started.
+     */
+    private PageStore store(Path bookDirectory, int generation) throws IOException {
+        PageStore store;
+        synchronized (this) {
+            store = stores.get(bookDirectory);
+        }
+        if (store == null) {
+            store = PageStore.open(bookDirectory);
+            synchronized (this) {
+                if (generation == generation(bookDirectory)) {
+                    stores.put(bookDirectory, store);
+                }
+            }
+        }
+        return store;
+    }
+
+    private int generation(Path bookDirectory) {
+        return generations.getOrDefault(bookDirectory, 0);
+    }
+
+    private synchronized void put(Key key, Page page, int generation) {
+        if (generation != generation(key.bookDirectory())) {
+            return;
+        }
+        Page old = pages.put(key, page);
+        if (old != null) {
+            characters -= weight(old);
+        }
+        characters += weight(page);
+        Iterator<Page> it = pages.values().iterator();
+        while (characters > maxCharacters && it.hasNext()) {
+            Page eldest = it.next();
+            if (eldest == page) {
+                break;
+            }
+            characters -= weight(eldest);
+            it.remove();
+        }
+    }
+
+    private static long weight(Page page) {
+        return (page.getHeading() == null ? 0 : page.getHeading().length()) +
+                (page.getText() == null ? 0 : page.getText().length());
+    }
+
+    private record Key(Path bookDirectory, int day) {
+    }
+}
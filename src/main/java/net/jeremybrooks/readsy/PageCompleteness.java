@@ -0,0 +1,195 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Page;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Tracks which days of a book have both a heading and text.
+ * <p>
+ * The flags are worked out from the pages in the {@link PageStore}, and saved in
+ * {@value #FILE_NAME} in the book directory together with the {@link PageStore#stamp(Path)
+ * fingerprint} of the page files, so the editor can find blank days without reading every
+ * page. The saved flags are only used while the fingerprint still matches; if a page was
+ * changed outside the editor, or the file is missing or damaged, the flags are built from
+ * the pages again.
+ * </p>
+ */
+public class PageCompleteness {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** Name of the completeness file in a book directory. */
+    public static final String FILE_NAME = "complete.flags";
+    private static final int MAGIC = 0x52444346;
+    private static final int VERSION = 1;
+
+    private final Path bookDirectory;
+    private final int days;
+    private final BitSet complete;
+
+    private PageCompleteness(Path bookDirectory, int days, BitSet complete) {
+        this.bookDirectory = bookDirectory;
+        this.days = days;
+        this.complete = complete;
+    }
+
+    /**
+     * Load the completeness flags for a book, building them from the pages if needed.
+     *
+     * @param pageStore the pages of the book.
+     * @param days      number of days in the book.
+     * @return completeness flags.
+     * @throws IOException if the flags had to be built and a page could not be read.
+     */
+    public static PageCompleteness open(PageStore pageStore, int days) throws IOException {
+        Path bookDirectory = pageStore.getBookDirectory();
+        long stamp = PageStore.stamp(bookDirectory);
+        BitSet complete = read(bookDirectory.resolve(FILE_NAME), stamp, days);
+        if (complete == null) {
+            complete = new BitSet(days + 1);
+            for (int day = 1; day <= days; day++) {
+                if (pageStore.hasPage(day) && isComplete(pageStore.readPage(day))) {
+                    complete.set(day);
+                }
+            }
+            PageCompleteness completeness = new PageCompleteness(bookDirectory, days, complete);
+            try {
+                completeness.save();
+            } catch (IOException e) {
+                logger.warn("Could not save completeness flags for {}", bookDirectory, e);
+            }
+            return completeness;
+        }
+        return new PageCompleteness(bookDirectory, days, complete);
+    }
+
+    /**
+     * Determine if a page has both a heading and text.
+     * <p>
+     * A heading or text that is only white space counts as blank, so a page of spaces or
+     * line breaks is reported as incomplete.
+     * </p>
+     *
+     * @param page the page.
+     * @return true if the heading and text are not blank.
+     */
+    public static boolean isComplete(Page page) {
+        return page.getHeading() != null && !page.getHeading().isBlank() &&
+                page.getText() != null && !page.getText().isBlank();
+    }
+
+    /**
+     * Record the page written for a day.
+     * The flags are not saved; call {@link #save()} once the pages have been written.
+     *
+     * @param day  the day of the page.
+     * @param page the page.
+     * @return true if the flags changed.
+     */
+    public boolean update(int day, Page page) {
+        boolean isComplete = isComplete(page);
+        if (complete.get(day) == isComplete) {
+            return false;
+        }
+        complete.set(day, isComplete);
+        return true;
+    }
+
+    /**
+     * Get the first day without a heading or text.
+     *
+     * @return first blank day, or null if every day is complete.
+     */
+    public Integer getFirstIncompleteDay() {
+        int day = complete.nextClearBit(1);
+        return day <= days ? day : null;
+    }
+
+    /**
+     * Get every day without a heading or text.
+     *
+     * @return blank days, in order.
+     */
+    public List<Integer> getIncompleteDays() {
+        List<Integer> incomplete = new ArrayList<>();
+        for (int day = complete.nextClearBit(1); day <= days; day = complete.nextClearBit(day + 1)) {
+            incomplete.add(day);
+        }
+        return incomplete;
+    }
+
+    /**
+     * Save the flags with the fingerprint of the page files as they are now.
+     * Call this after every page that was updated has been written, so the saved
+     * flags match the pages.
+     *
+     * @throws IOException if the flags could not be written.
+     */
+    public void save() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            byte[] flags = complete.toByteArray();
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(PageStore.stamp(bookDirectory));
+            out.writeInt(days);
+            out.writeInt(flags.length);
+            out.write(flags);
+        }
+        BookUtils.writeAtomically(bookDirectory.resolve(FILE_NAME), bytes.toByteArray());
+    }
+
+    /* read the saved flags, or return null if they are missing, damaged or out of date */
+    private static BitSet read(Path file, long stamp, int days) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.warn("Ignoring damaged completeness file {}", file);
+                return null;
+            }
+            if (in.readLong() != stamp || in.readInt() != days) {
+                logger.debug("Pages have changed since {} was saved", file);
+                return null;
+            }
+            byte[] flags = new byte[in.readInt()];
+            in.readFully(flags);
+            return BitSet.valueOf(flags);
+        } catch (NoSuchFileException e) {
+            logger.debug("No completeness file {}", file);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring damaged completeness file {}", file);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,456 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import net.jeremybrooks.readsy.model.Page;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Reads and writes the pages of a book.
+ * <p>
+ * Pages can be stored as one JSON file per day, named {@code <day>.json}, or packed into
+ * a single file named {@value #PACK_FILE_NAME}. The packed file starts with a header that
+ * holds the offset and length of every day's page, followed by the page records.
+ * </p>
+ * <p>
+ * The packed file is read into a heap buffer with one read when the store is opened,
+ * and the file is closed again straight away. The file is not memory mapped: on Windows
+ * a mapped file cannot be replaced or deleted until the mapping is garbage collected,
+ * which would stop the book from being packed again, edited or removed while a store
+ * for it is still referenced. Reading a page parses its record from the in-memory
+ * buffer with Jackson's streaming parser. A store can be shared between threads.
+ * </p>
+ * <p>
+ * Days without a page are blank, so a new book does not need a file for every day.
+ * </p>
+ * <p>
+ * If a book has both, a loose JSON file takes precedence over the packed page for the
+ * same day. Imported books are packed by {@link #pack(Path)}, books already in the
+ * library are converted in the background by the {@link LibraryIndex}, and the editor
+ * writes loose files.
+ * </p>
+ * <p>
+ * Packed file layout, all numbers big-endian:
+ * </p>
+ * <pre>
+ *   8 bytes   magic "RDSYPACK"
+ *   int       format version
+ *   int       number of day slots (n)
+ *   n * (long offset, int length)   page record for day 1..n, length 0 if there is no page
+ *   page records, each a UTF-8 JSON Page
+ * </pre>
+ */
+public class PageStore {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** Name of the packed page file in a book directory. */
+    public static final String PACK_FILE_NAME = "pages.pack";
+    private static final byte[] MAGIC = {'R', 'D', 'S', 'Y', 'P', 'A', 'C', 'K'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 8;
+    private static final int SLOT_SIZE = 12;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final Path bookDirectory;
+    private final BitSet loosePages;
+    private final ByteBuffer packed;
+    private final int[] offsets;
+    private final int[] lengths;
+
+    private PageStore(Path bookDirectory, BitSet loosePages, ByteBuffer packed, int[] offsets, int[] lengths) {
+        this.bookDirectory = bookDirectory;
+        this.loosePages = loosePages;
+        this.packed = packed;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Open the pages of a book.
+     *
+     * @param bookDirectory the directory containing the book.
+     * @return page store for the book.
+     * @throws IOException if the book directory or packed file could not be read.
+     */
+    public static PageStore open(Path bookDirectory) throws IOException {
+        BitSet loosePages = findLoosePages(bookDirectory);
+        Path packFile = bookDirectory.resolve(PACK_FILE_NAME);
+        if (!Files.exists(packFile)) {
+            return new PageStore(bookDirectory, loosePages, EMPTY, new int[0], new int[0]);
+        }
+        ByteBuffer packed;
+        try (FileChannel channel = FileChannel.open(packFile, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Page file is too large: " + packFile);
+            }
+            packed = ByteBuffer.allocate((int) channel.size());
+            while (packed.hasRemaining()) {
+                if (channel.read(packed) < 0) {
+                    throw new IOException("Page file is damaged: " + packFile);
+                }
+            }
+        }
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            packed.get(0, magic);
+            int version = packed.getInt(MAGIC.length);
+            int slots = packed.getInt(MAGIC.length + 4);
+            if (!Arrays.equals(magic, MAGIC) || version != VERSION || slots < 0) {
+                throw new IOException("Not a readsy page file: " + packFile);
+            }
+            int[] offsets = new int[slots];
+            int[] lengths = new int[slots];
+            for (int i = 0; i < slots; i++) {
+                int slot = HEADER_SIZE + i * SLOT_SIZE;
+                long offset = packed.getLong(slot);
+                int length = packed.getInt(slot + 8);
+                if (length < 0 || (length > 0 && (offset < 0 || offset + length > packed.capacity()))) {
+                    throw new IOException("Page file is damaged: " + packFile);
+                }
+                offsets[i] = (int) offset;
+                lengths[i] = length;
+            }
+            return new PageStore(bookDirectory, loosePages, packed, offsets, lengths);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Page file is damaged: " + packFile, e);
+        }
+    }
+
+    public Path getBookDirectory() {
+        return bookDirectory;
+    }
+
+    /**
+     * Determine if this book has pages stored as loose JSON files.
+     *
+     * @return true if any page is stored in its own file.
+     */
+    public boolean hasLoosePages() {
+        synchronized (loosePages) {
+            return !loosePages.isEmpty();
+        }
+    }
+
+    /**
+     * Get the last day that has a page.
+     *
+     * @return last day with a page, or 0 if the book has no pages.
+     */
+    public int getLastDay() {
+        int lastLoose;
+        synchronized (loosePages) {
+            lastLoose = loosePages.length() - 1;
+        }
+        for (int day = lengths.length; day > lastLoose; day--) {
+            if (lengths[day - 1] > 0) {
+                return day;
+            }
+        }
+        return Math.max(lastLoose, 0);
+    }
+
+    /**
+     * Determine if there is a page for a day.
+     *
+     * @param day the day of the reading year.
+     * @return true if the page exists.
+     */
+    public boolean hasPage(int day) {
+        return isLoose(day) || (day >= 1 && day <= lengths.length && lengths[day - 1] > 0);
+    }
+
+    /**
+     * Read the page for a day.
+     * <p>
+     * Books only store the days that have been written, so a day with no page is
+     * returned as a page with an empty heading and text.
+     * </p>
+     *
+     * @param day the day of the reading year.
+     * @return the page.
+     * @throws NoSuchFileException if the day is before the first day.
+     * @throws IOException         if the page could not be read.
+     */
+    public Page readPage(int day) throws IOException {
+        if (day < 1) {
+            throw new NoSuchFileException(pagePath(day).toString(), null, "There is no page for day " + day);
+        }
+        if (isLoose(day)) {
+            return parsePage(ByteBuffer.wrap(Files.readAllBytes(pagePath(day))));
+        }
+        ByteBuffer record = record(day);
+        if (record == null) {
+            return blankPage();
+        }
+        return parsePage(record);
+    }
+
+    /**
+     * Create a page with an empty heading and text.
+     *
+     * @return blank page.
+     */
+    public static Page blankPage() {
+        Page page = new Page();
+        page.setHeading("");
+        page.setText("");
+        return page;
+    }
+
+    /**
+     * Write the page for a day to its own file.
+     *
+     * @param day  the day of the reading year.
+     * @param page the page to write.
+     * @throws IOException if the page could not be written.
+     */
+    public void writePage(int day, Page page) throws IOException {
+        BookUtils.writeAtomically(pagePath(day), MapperFactory.getPageWriter().writeValueAsBytes(page));
+        pageWritten(day);
+    }
+
+    /**
+     * Record that the page for a day has been written to its own file by someone else,
+     * for example a {@link net.jeremybrooks.readsy.workers.BookWriteQueue}.
+     *
+     * @param day the day of the reading year.
+     */
+    public void pageWritten(int day) {
+        synchronized (loosePages) {
+            loosePages.set(day);
+        }
+    }
+
+    /**
+     * Get the path of the file that holds the page for a day when it is stored on its own.
+     *
+     * @param day the day of the reading year.
+     * @return path of the page file.
+     */
+    public Path getPagePath(int day) {
+        return pagePath(day);
+    }
+
+    /**
+     * Pack all the pages of a book into a single file.
+     * <p>
+     * The packed file is written to a temporary file and renamed into place, then the
+     * loose JSON page files are deleted. This is done while the book is imported, before
+     * it is visible in the library, and holds the book's {@link BookLocks lock}. Books
+     * that were added before pages were packed are converted by {@link #packLoosePages(Path)}.
+     * </p>
+     *
+     * @param bookDirectory the directory containing the book.
+     * @throws IOException if the pages could not be packed.
+     */
+    public static void pack(Path bookDirectory) throws IOException {
+        Lock lock = BookLocks.forBook(bookDirectory);
+        lock.lock();
+        try {
+            PageStore store = open(bookDirectory);
+            int slots = Math.max(store.lengths.length, store.loosePages.length() - 1);
+            long[] offsets = new long[slots];
+            int[] lengths = new int[slots];
+            ByteArrayOutputStream records = new ByteArrayOutputStream();
+            long offset = HEADER_SIZE + (long) slots * SLOT_SIZE;
+            for (int day = 1; day <= slots; day++) {
+                byte[] record = null;
+                if (store.loosePages.get(day)) {
+                    // parse and re-serialize so a damaged file is caught before it is packed
+                    record = MapperFactory.getPageWriter().writeValueAsBytes(store.readPage(day));
+                } else if (store.hasPage(day)) {
+                    record = new byte[store.lengths[day - 1]];
+                    store.record(day).get(record);
+                }
+                if (record != null) {
+                    offsets[day - 1] = offset + records.size();
+                    lengths[day - 1] = record.length;
+                    records.write(record);
+                }
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + slots * SLOT_SIZE);
+            header.put(MAGIC).putInt(VERSION).putInt(slots);
+            for (int i = 0; i < slots; i++) {
+                header.putLong(offsets[i]).putInt(lengths[i]);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(header.capacity() + records.size());
+            out.write(header.array());
+            records.writeTo(out);
+            BookUtils.writeAtomically(bookDirectory.resolve(PACK_FILE_NAME), out.toByteArray());
+
+            for (int day = store.loosePages.nextSetBit(0); day >= 0; day = store.loosePages.nextSetBit(day + 1)) {
+                Files.deleteIfExists(store.pagePath(day));
+            }
+            logger.info("Packed {} pages in {}", slots, bookDirectory);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pack the pages of a book that keeps them only in loose files.
+     * <p>
+     * Books with a packed file are left alone, even if some pages have been edited since,
+     * as are books without pages. Readers that opened the book before it was packed see
+     * its page files disappear, and should open it again.
+     * </p>
+     *
+     * @param bookDirectory the directory containing the book.
+     * @return true if the book was packed.
+     * @throws IOException if the pages could not be packed.
+     */
+    public static boolean packLoosePages(Path bookDirectory) throws IOException {
+        Lock lock = BookLocks.forBook(bookDirectory);
+        lock.lock();
+        try {
+            if (!Files.isDirectory(bookDirectory) || Files.exists(bookDirectory.resolve(PACK_FILE_NAME))
+                    || findLoosePages(bookDirectory).isEmpty()) {
+                return false;
+            }
+            pack(bookDirectory);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get a fingerprint of the page files of a book, made from the name, size and modified
+     * time of the packed page file and every loose page file. Anything that is worked out
+     * from the pages can be saved with the fingerprint, and trusted while it still matches.
+     *
+     * @param bookDirectory the directory containing the book.
+     * @return fingerprint of the pages.
+     * @throws IOException if the book directory could not be read.
+     */
+    public static long stamp(Path bookDirectory) throws IOException {
+        long stamp = 17;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(bookDirectory, "*.{json,pack}")) {
+            List<Path> pageFiles = new ArrayList<>();
+            for (Path file : files) {
+                if (!file.getFileName().toString().equals("book.json")) {
+                    pageFiles.add(file);
+                }
+            }
+            pageFiles.sort(Comparator.naturalOrder());
+            for (Path file : pageFiles) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                stamp = 31 * stamp + file.getFileName().toString().hashCode();
+                stamp = 31 * stamp + attributes.size();
+                stamp = 31 * stamp + attributes.lastModifiedTime().toMillis();
+            }
+        }
+        return stamp;
+    }
+
+    /* get a view of the packed record for a day, or null if there is none */
+    private ByteBuffer record(int day) {
+        if (day < 1 || day > lengths.length || lengths[day - 1] == 0) {
+            return null;
+        }
+        return packed.slice(offsets[day - 1], lengths[day - 1]);
+    }
+
+    /* parse a page with the streaming parser */
+    private static Page parsePage(ByteBuffer buffer) throws IOException {
+        try (JsonParser parser = MapperFactory.getPageReader().createParser(
+                buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a page object");
+            }
+            Page page = new Page();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                switch (name) {
+                    case "heading" -> page.setHeading(parser.getValueAsString());
+                    case "text" -> page.setText(parser.getValueAsString());
+                    default -> parser.skipChildren();
+                }
+            }
+            return page;
+        }
+    }
+
+    private boolean isLoose(int day) {
+        synchronized (loosePages) {
+            return loosePages.get(day);
+        }
+    }
+
+    private Path pagePath(int day) {
+        return bookDirectory.resolve(day + ".json");
+    }
+
+    private static BitSet findLoosePages(Path bookDirectory) throws IOException {
+        BitSet loosePages = new BitSet();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(bookDirectory, "*.json")) {
+            for (Path file : files) {
+                int day = dayOf(file);
+                if (day > 0) {
+                    loosePages.set(day);
+                }
+            }
+        }
+        return loosePages;
+    }
+
+    /**
+     * Get the day of a loose page file.
+     *
+     * @param file a file in a book directory.
+     * @return the day the file holds the page for, or 0 if it is not a page file.
+     */
+    public static int dayOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(".json")) {
+            return 0;
+        }
+        try {
+            return Math.max(Integer.parseInt(name.substring(0, name.length() - ".json".length())), 0);
+        } catch (NumberFormatException e) {
+            // not a page, probably book.json
+            return 0;
+        }
+    }
+}
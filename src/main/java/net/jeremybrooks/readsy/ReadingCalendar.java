@@ -0,0 +1,72 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+/**
+ * Reading calendar calculations on epoch days.
+ * <p>
+ * Dates are passed as days since the epoch, as returned by {@link java.time.LocalDate#toEpochDay()},
+ * so every calculation is plain arithmetic. A reading plan is the range of days from the
+ * reading start date through the reading end date, inclusive, and may be any length,
+ * including more than one calendar year.
+ * </p>
+ */
+public class ReadingCalendar {
+
+    private ReadingCalendar() {
+    }
+
+    /**
+     * Get the day of the reading plan for a date.
+     * The reading start date is day 1.
+     *
+     * @param startEpochDay the reading start date.
+     * @param epochDay      the date.
+     * @return day of the reading plan. This is less than 1 if the date is before the start date.
+     */
+    public static int dayOfReadingYear(long startEpochDay, long epochDay) {
+        return Math.toIntExact(epochDay - startEpochDay + 1);
+    }
+
+    /**
+     * Get the number of days in a reading plan, inclusive of the start and end days.
+     *
+     * @param startEpochDay the reading start date.
+     * @param endEpochDay   the reading end date.
+     * @return number of days in the plan.
+     */
+    public static int daysInRange(long startEpochDay, long endEpochDay) {
+        return Math.toIntExact(endEpochDay - startEpochDay + 1);
+    }
+
+    /**
+     * Determine if a date is within a reading plan.
+     *
+     * @param epochDay      the date.
+     * @param startEpochDay the reading start date.
+     * @param endEpochDay   the reading end date.
+     * @return true if the date is on or after the start date and on or before the end date.
+     */
+    public static boolean isInRange(long epochDay, long startEpochDay, long endEpochDay) {
+        return epochDay >= startEpochDay && epochDay <= endEpochDay;
+    }
+}
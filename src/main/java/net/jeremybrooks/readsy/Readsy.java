@@ -21,8 +21,8 @@
 
 package net.jeremybrooks.readsy;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.stage.Stage;
@@ -45,32 +45,82 @@ import java.nio.file.Paths;
  */
 public class Readsy extends Application {
     private static final Logger logger = LogManager.getLogger();
+    private AppModel appModel;
+    private final StartupTimer startupTimer = new StartupTimer();
+    private StartupPipeline startup;
+
+    /*
+     * Called on the launcher thread once the toolkit is running.
+     * Start reading the configuration and library so it overlaps building the window.
+     */
+    @Override
+    public void init() throws Exception {
+        startupTimer.mark("toolkit started");
+        if (TrainingRun.isTraining()) {
+            TrainingRun.prepareHome(Paths.get(System.getProperty("user.home")));
+        }
+        appModel = new AppModel();
+        startup = StartupPipeline.start(appModel, startupTimer, Readsy::getConfiguration);
+    }
 
     @Override
     public void start(Stage stage) {
-        AppModel appModel = new AppModel();
         appModel.setStage(stage);
         try {
-            appModel.setConfiguration(getConfiguration());
+            appModel.setConfiguration(startup.getConfiguration());
             if (appModel.getConfiguration().getBookDirectory() == null ||
                     appModel.getConfiguration().getBookDirectory().isEmpty()) {
                 appModel.setActiveState(ActiveState.WELCOME);
+            } else {
+                appModel.setLibraryIndex(startup.getLibraryIndex());
             }
             appModel.setVersion(Readsy.class.getPackage().getImplementationVersion());
 
             ViewManager viewManager = new ViewManager(appModel);
+            startupTimer.mark("view built");
             Scene scene = new Scene(viewManager.getCurrentView(), appModel.getConfiguration().getWindowWidth(), appModel.getConfiguration().getWindowHeight());
             scene.rootProperty().bind(viewManager.currentViewProperty());
+            // the first frame that has been laid out is when the user can start using the window
+            Runnable firstFrame = new Runnable() {
+                @Override
+                public void run() {
+                    startupTimer.interactive();
+                    Platform.runLater(() -> scene.removePostLayoutPulseListener(this));
+                    if (Boolean.getBoolean(StartupTimer.EXIT_PROPERTY)) {
+                        Platform.exit();
+                    }
+                }
+            };
+            scene.addPostLayoutPulseListener(firstFrame);
             stage.setScene(scene);
             stage.setX(appModel.getConfiguration().getWindowX());
             stage.setY(appModel.getConfiguration().getWindowY());
             stage.show();
+            startupTimer.mark("stage shown");
+            if (TrainingRun.isTraining()) {
+                TrainingRun.exercise(appModel);
+            }
         } catch (Exception e) {
             errExit(1, e);
         }
     }
 
-    public static void main(String... args) {
+    @Override
+    public void stop() {
+        if (appModel != null) {
+            if (appModel.getLibraryIndex() != null) {
+                appModel.getLibraryIndex().close();
+            }
+            appModel.getPageCache().close();
+            appModel.getSearchIndex().close();
+        }
+    }
+
+    public static void main(String... args) throws Exception {
+        if (args.length > 0 && args[0].equals(TrainingRun.TRAIN_ARGUMENT)) {
+            Path archive = Paths.get(args.length > 1 ? args[1] : Constants.READSY_CDS_ARCHIVE);
+            System.exit(TrainingRun.train(archive));
+        }
         System.out.println(System.getProperty("os.name"));
         // If running on a Mac, set up the event handler
         if (System.getProperty("os.name").toLowerCase().contains("mac")) {
@@ -82,6 +132,10 @@ public class Readsy extends Application {
             }
         }
         launch();
+        // make sure the JVM ends, so a training run writes its archive
+        if (TrainingRun.isTraining() || Boolean.getBoolean(StartupTimer.EXIT_PROPERTY)) {
+            System.exit(0);
+        }
     }
 
     private static Configuration getConfiguration() throws IOException {
@@ -89,11 +143,10 @@ public class Readsy extends Application {
         if (!Files.exists(configDir)) {
             Files.createDirectories(configDir);
         }
-        ObjectMapper mapper = MapperFactory.getObjectMapper();
         Configuration configuration;
         Path configFile = Paths.get(Constants.READSY_CONFIG_FILE);
         if (Files.exists(configFile)) {
-            configuration = mapper.readValue(configFile.toFile(), Configuration.class);
+            configuration = MapperFactory.getConfigurationReader().readValue(configFile.toFile());
         } else {
             configuration = new Configuration();
             new SaveConfigWorker(configuration);
@@ -0,0 +1,332 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Page;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Full text search over the headings and text of every page in the library.
+ * <p>
+ * Each book has an inverted index, mapping each word to the days it appears on and how
+ * often. The index is saved in {@value #INDEX_FILE_NAME} in the book directory, together
+ * with a stamp of the page files it was built from, so it is only rebuilt when the pages
+ * change. Indexes are kept in memory once loaded, and a search is a hash lookup per word
+ * per book. The index is kept up to date a book at a time: the {@link LibraryIndex}
+ * updates it as books are added to or removed from the library, and the editor updates
+ * a book after writing its pages, so a search never has to check the books.
+ * </p>
+ * <p>
+ * Results are ranked by TF-IDF, with words in the heading counting more than words in
+ * the text, and pages matching more of the query words ranked first.
+ * </p>
+ */
+public class SearchIndex implements Closeable {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** Name of the search index file in a book directory. */
+    public static final String INDEX_FILE_NAME = "search.index";
+
+    private static final long MAGIC = 0x5244535953524348L; // RDSYSRCH
+    private static final int VERSION = 1;
+    private static final int HEADING_WEIGHT = 3;
+    private static final int MAX_COUNT = 0xFFFF;
+
+    private final Map<Path, BookIndex> books = new ConcurrentHashMap<>();
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(
+            runnable -> Thread.ofPlatform().name("readsy-search-indexer").daemon().unstarted(runnable));
+
+    /**
+     * A page that matches a search.
+     *
+     * @param bookDirectory the directory containing the book.
+     * @param day           the day of the page.
+     * @param score         relevance of the page; higher is better.
+     */
+    public record Result(Path bookDirectory, int day, double score) {
+    }
+
+    /*
+     * The index of one book. Each posting is the day in the high 16 bits and the
+     * weighted number of times the word appears in the low 16 bits.
+     */
+    private record BookIndex(long stamp, int pageCount, Map<String, int[]> postings) {
+    }
+
+    /**
+     * Bring the index of some books up to date, in the background.
+     *
+     * @param bookDirectories the directories of the books to index.
+     * @return future that completes when the books have been indexed.
+     */
+    public CompletableFuture<Void> update(Collection<Path> bookDirectories) {
+        List<Path> directories = List.copyOf(bookDirectories);
+        return CompletableFuture.runAsync(() -> {
+            for (Path bookDirectory : directories) {
+                try {
+                    updateBook(bookDirectory);
+                } catch (Exception e) {
+                    logger.warn("Could not index {}", bookDirectory, e);
+                }
+            }
+        }, indexer);
+    }
+
+    /**
+     * Remove a book from the index.
+     *
+     * @param bookDirectory the directory of the book.
+     */
+    public void remove(Path bookDirectory) {
+        books.remove(bookDirectory);
+    }
+
+    /**
+     * Remove every book whose directory is not in the supplied collection.
+     *
+     * @param bookDirectories the directories of the books to keep.
+     */
+    public void retainAll(Collection<Path> bookDirectories) {
+        books.keySet().retainAll(Set.copyOf(bookDirectories));
+    }
+
+    /**
+     * Get the number of books in the index.
+     *
+     * @return number of indexed books.
+     */
+    public int size() {
+        return books.size();
+    }
+
+    /**
+     * Search the library.
+     *
+     * @param query words to search for.
+     * @param limit maximum number of results.
+     * @return matching pages, best first.
+     */
+    public List<Result> search(String query, int limit) {
+        Set<String> words = new LinkedHashSet<>();
+        tokenize(query, (word, weight) -> words.add(word));
+        if (words.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        Map<Path, BookIndex> snapshot = Map.copyOf(books);
+
+        // document frequency of each word across the library, for IDF
+        long pages = 0;
+        Map<String, Integer> documentFrequency = new HashMap<>();
+        for (BookIndex book : snapshot.values()) {
+            pages += book.pageCount();
+            for (String word : words) {
+                int[] postings = book.postings().get(word);
+                if (postings != null) {
+                    documentFrequency.merge(word, postings.length, Integer::sum);
+                }
+            }
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (Map.Entry<Path, BookIndex> entry : snapshot.entrySet()) {
+            Map<Integer, double[]> pageScores = new HashMap<>();
+            for (String word : words) {
+                int[] postings = entry.getValue().postings().get(word);
+                if (postings == null) {
+                    continue;
+                }
+                double idf = Math.log(1.0 + (double) pages / documentFrequency.get(word));
+                for (int posting : postings) {
+                    double[] score = pageScores.computeIfAbsent(posting >>> 16, day -> new double[2]);
+                    score[0] += (1 + Math.log(posting & MAX_COUNT)) * idf;
+                    score[1]++;
+                }
+            }
+            pageScores.forEach((day, score) ->
+                    results.add(new Result(entry.getKey(), day, score[0] * score[1] / words.size())));
+        }
+        results.sort(Comparator.comparingDouble(Result::score).reversed()
+                .thenComparing(result -> result.bookDirectory().toString())
+                .thenComparingInt(Result::day));
+        return results.size() > limit ? List.copyOf(results.subList(0, limit)) : results;
+    }
+
+    @Override
+    public void close() {
+        indexer.shutdownNow();
+    }
+
+    /*
+     * Load the saved index for a book if it matches the pages, otherwise build and save it.
+     */
+    private void updateBook(Path bookDirectory) throws IOException {
+        Lock lock = BookLocks.forBook(bookDirectory);
+        lock.lock();
+        try {
+            if (!Files.isDirectory(bookDirectory)) {
+                books.remove(bookDirectory);
+                return;
+            }
+            long stamp = PageStore.stamp(bookDirectory);
+            BookIndex current = books.get(bookDirectory);
+            if (current != null && current.stamp() == stamp) {
+                return;
+            }
+            BookIndex index = read(bookDirectory.resolve(INDEX_FILE_NAME), stamp);
+            if (index == null) {
+                index = build(bookDirectory, stamp);
+                try {
+                    BookUtils.writeAtomically(bookDirectory.resolve(INDEX_FILE_NAME), toBytes(index));
+                } catch (IOException e) {
+                    logger.warn("Could not save search index for {}", bookDirectory, e);
+                }
+            }
+            books.put(bookDirectory, index);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static BookIndex build(Path bookDirectory, long stamp) throws IOException {
+        PageStore store = PageStore.open(bookDirectory);
+        Map<String, Map<Integer, Integer>> counts = new HashMap<>();
+        int pageCount = 0;
+        for (int day = 1; day <= store.getLastDay(); day++) {
+            if (!store.hasPage(day)) {
+                continue;
+            }
+            Page page = store.readPage(day);
+            int pageDay = day;
+            pageCount++;
+            Tokenizer counter = (word, weight) -> counts.computeIfAbsent(word, w -> new HashMap<>())
+                    .merge(pageDay, weight, Integer::sum);
+            tokenize(page.getHeading(), (word, weight) -> counter.accept(word, HEADING_WEIGHT));
+            tokenize(page.getText(), counter);
+        }
+        Map<String, int[]> postings = new HashMap<>(counts.size() * 2);
+        counts.forEach((word, days) -> postings.put(word, days.entrySet().stream()
+                .mapToInt(e -> (e.getKey() << 16) | Math.min(e.getValue(), MAX_COUNT))
+                .sorted()
+                .toArray()));
+        logger.debug("Indexed {} words on {} pages in {}", postings.size(), pageCount, bookDirectory);
+        return new BookIndex(stamp, pageCount, postings);
+    }
+
+    private static BookIndex read(Path file, long stamp) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readLong() != MAGIC || in.readInt() != VERSION || in.readLong() != stamp) {
+                return null;
+            }
+            int pageCount = in.readInt();
+            int words = in.readInt();
+            Map<String, int[]> postings = new HashMap<>(words * 2);
+            for (int i = 0; i < words; i++) {
+                String word = in.readUTF();
+                int[] days = new int[in.readInt()];
+                for (int j = 0; j < days.length; j++) {
+                    days[j] = in.readInt();
+                }
+                postings.put(word, days);
+            }
+            return new BookIndex(stamp, pageCount, postings);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring damaged search index {}", file, e);
+            return null;
+        }
+    }
+
+    private static byte[] toBytes(BookIndex index) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(index.stamp());
+            out.writeInt(index.pageCount());
+            out.writeInt(index.postings().size());
+            String[] words = index.postings().keySet().toArray(new String[0]);
+            Arrays.sort(words);
+            for (String word : words) {
+                int[] days = index.postings().get(word);
+                out.writeUTF(word);
+                out.writeInt(days.length);
+                for (int day : days) {
+                    out.writeInt(day);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /*
+     * Split text into lower case words of letters and digits, at least two characters long.
+     */
+    static void tokenize(String text, Tokenizer tokenizer) {
+        if (text == null) {
+            return;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start > 1) {
+                    tokenizer.accept(text.substring(start, i).toLowerCase(Locale.ROOT), 1);
+                }
+                start = -1;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Tokenizer {
+        void accept(String word, int weight);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.AppModel;
+import net.jeremybrooks.readsy.model.Configuration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Work done at startup, overlapped with building the main window.
+ * <p>
+ * Once the configuration has been read, the library snapshot is read in the background,
+ * while Jackson is warmed up on another thread. The JavaFX thread only waits for the
+ * configuration, and waits at most {@link #LIBRARY_WAIT_MILLIS} for the snapshot; if it
+ * is slower than that, for example on a slow disk, the library view loads the library
+ * as usual.
+ * </p>
+ * <p>
+ * Only plain data is produced in the background. The {@link LibraryIndex} is filled,
+ * and the covers of the books that will be visible are requested, on the thread that
+ * asks for the library, so nothing needs to be thrown away if the snapshot is late.
+ * The library view starts the scan that brings the index up to date.
+ * </p>
+ */
+public class StartupPipeline {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** How long the JavaFX thread waits for the library before building the view without it. */
+    public static final long LIBRARY_WAIT_MILLIS = 250;
+
+    private static final double CELL_HEIGHT = 100;
+
+    private final AppModel appModel;
+    private final StartupTimer timer;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Path snapshotFile;
+    private final CompletableFuture<Configuration> configuration;
+    private final CompletableFuture<List<LibrarySnapshot.Entry>> snapshot;
+
+    private StartupPipeline(AppModel appModel, StartupTimer timer, Callable<Configuration> configurationReader,
+                            Path snapshotFile) {
+        this.appModel = appModel;
+        this.timer = timer;
+        this.snapshotFile = snapshotFile;
+        CompletableFuture.runAsync(this::warmJackson, executor);
+        configuration = CompletableFuture.supplyAsync(() -> {
+            try {
+                Configuration config = configurationReader.call();
+                timer.mark("configuration read");
+                return config;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+        snapshot = configuration.thenApplyAsync(this::readSnapshot, executor);
+        // the snapshot is submitted when the configuration has been read, so only shut down after that
+        snapshot.whenComplete((entries, e) -> executor.shutdown());
+    }
+
+    /**
+     * Start reading the configuration and loading the library in the background.
+     *
+     * @param appModel            the model; the pipeline uses its cover cache.
+     * @param timer               timer to record startup phases.
+     * @param configurationReader reads the configuration file.
+     * @return the running pipeline.
+     */
+    public static StartupPipeline start(AppModel appModel, StartupTimer timer,
+                                        Callable<Configuration> configurationReader) {
+        return start(appModel, timer, configurationReader, Paths.get(Constants.READSY_LIBRARY_SNAPSHOT));
+    }
+
+    static StartupPipeline start(AppModel appModel, StartupTimer timer,
+                                 Callable<Configuration> configurationReader, Path snapshotFile) {
+        return new StartupPipeline(appModel, timer, configurationReader, snapshotFile);
+    }
+
+    /**
+     * Wait for the configuration.
+     *
+     * @return the configuration.
+     * @throws Exception if the configuration could not be read.
+     */
+    public Configuration getConfiguration() throws Exception {
+        try {
+            return configuration.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * Wait a short time for the library snapshot, and fill a new library index from it.
+     * <p>
+     * This must be called on the JavaFX application thread, after the configuration has
+     * been read. The covers of the books that will be visible are requested, and the
+     * index starts watching the library; it has not been scanned yet.
+     * </p>
+     *
+     * @return the library index, or null if the snapshot was not read in time.
+     */
+    public LibraryIndex getLibraryIndex() {
+        LibraryIndex index = loadLibraryIndex(LIBRARY_WAIT_MILLIS);
+        if (index != null) {
+            int visible = (int) Math.ceil(configuration.join().getWindowHeight() / CELL_HEIGHT) + 1;
+            index.getBooks().stream()
+                    .limit(visible)
+                    .map(book -> Paths.get(book.getBookPath()).getParent())
+                    .forEach(appModel.getCoverCache()::getCover);
+            timer.mark("covers requested");
+            index.startWatching();
+        }
+        return index;
+    }
+
+    /* wait for the snapshot, then fill a new index from it on this thread */
+    LibraryIndex loadLibraryIndex(long waitMillis) {
+        List<LibrarySnapshot.Entry> entries;
+        try {
+            entries = snapshot.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.info("Library not loaded after {} ms, continuing without it", waitMillis);
+            return null;
+        } catch (Exception e) {
+            logger.warn("Could not load the library at startup", e);
+            return null;
+        }
+        if (entries == null) {
+            return null;
+        }
+        LibraryIndex index = new LibraryIndex(Paths.get(configuration.join().getBookDirectory()), snapshotFile);
+        index.setCoverCache(appModel.getCoverCache());
+        index.loadSnapshot(entries);
+        return index;
+    }
+
+    /* read the snapshot of the configured library, or null if there is no library */
+    private List<LibrarySnapshot.Entry> readSnapshot(Configuration config) {
+        if (config.getBookDirectory() == null || config.getBookDirectory().isEmpty()) {
+            return null;
+        }
+        List<LibrarySnapshot.Entry> entries = LibrarySnapshot.read(snapshotFile, Paths.get(config.getBookDirectory()));
+        timer.mark(String.format("library snapshot read, %d books", entries.size()));
+        return entries;
+    }
+
+    /* load the Jackson classes and build the readers before they are first needed */
+    private void warmJackson() {
+        try {
+            MapperFactory.getBookReader().readValue("{\"title\":\"\"}");
+            MapperFactory.getPageReader().readValue("{\"heading\":\"\",\"text\":\"\"}");
+            timer.mark("jackson ready");
+        } catch (Exception e) {
+            logger.debug("Could not warm up Jackson", e);
+        }
+    }
+}
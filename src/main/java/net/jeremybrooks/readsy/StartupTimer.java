@@ -0,0 +1,90 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Logs how long after the JVM started each phase of startup finished.
+ * <p>
+ * Phases may finish on any thread. The time to interactive is the time the first frame
+ * with the main window was laid out, and is logged once.
+ * </p>
+ */
+public class StartupTimer {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** System property that makes the application exit once it is interactive, for measuring startup. */
+    public static final String EXIT_PROPERTY = "readsy.startup.exitWhenInteractive";
+
+    private final Instant start;
+    private volatile long interactiveMillis = -1;
+
+    public StartupTimer() {
+        this(ProcessHandle.current().info().startInstant().orElseGet(Instant::now));
+    }
+
+    StartupTimer(Instant start) {
+        this.start = start;
+    }
+
+    /**
+     * Get the time since the JVM started.
+     *
+     * @return elapsed milliseconds.
+     */
+    public long elapsedMillis() {
+        return Duration.between(start, Instant.now()).toMillis();
+    }
+
+    /**
+     * Record that a phase of startup has finished.
+     *
+     * @param phase name of the phase.
+     */
+    public void mark(String phase) {
+        logger.info("Startup: {} at {} ms", phase, elapsedMillis());
+    }
+
+    /**
+     * Record that the application is ready to use. Only the first call is recorded.
+     */
+    public synchronized void interactive() {
+        if (interactiveMillis < 0) {
+            interactiveMillis = elapsedMillis();
+            logger.info("Startup: time to interactive {} ms", interactiveMillis);
+        }
+    }
+
+    /**
+     * Get the time to interactive.
+     *
+     * @return milliseconds from JVM start until the application was ready, or -1 if it is not ready yet.
+     */
+    public long getInteractiveMillis() {
+        return interactiveMillis;
+    }
+}
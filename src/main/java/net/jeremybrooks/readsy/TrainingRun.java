@@ -0,0 +1,263 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+import net.jeremybrooks.readsy.model.AppModel;
+import net.jeremybrooks.readsy.model.Book;
+import net.jeremybrooks.readsy.model.Configuration;
+import net.jeremybrooks.readsy.model.Page;
+import net.jeremybrooks.readsy.workers.ImportBooksWorker;
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records a class data sharing archive so later launches start faster.
+ * <p>
+ * Running readsy with {@value #TRAIN_ARGUMENT} starts a second JVM with
+ * {@code -XX:ArchiveClassesAtExit} and a temporary home directory. That JVM imports a
+ * sample book, shows every {@link ActiveState} in turn, searches and reads pages, and
+ * exits, so the archive holds the JavaFX, Jackson, Log4j and readsy classes a normal
+ * session uses. The archive is written to {@link Constants#READSY_CDS_ARCHIVE}
+ * unless another path follows the argument, and the launcher passes it to the JVM with
+ * {@code -XX:SharedArchiveFile}.
+ * </p>
+ * <p>
+ * A dynamic archive can only be used by a JVM started with the same class path and
+ * module path as the one that recorded it, so the training JVM is started the same way
+ * as the JVM it is launched from; run the training from the launcher that will use the
+ * archive. The launchers never record an archive themselves. If the archive is missing
+ * or no longer matches, for example after an update, the JVM starts without it until
+ * the training is run again.
+ * </p>
+ * <p>
+ * JavaFX has no headless platform in the bundled runtime, so the training run shows its
+ * window briefly and needs a display.
+ * </p>
+ */
+public class TrainingRun {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** Command line argument that records the archive. */
+    public static final String TRAIN_ARGUMENT = "--train";
+
+    /** System property set in the JVM doing the training run. */
+    public static final String TRAINING_PROPERTY = "readsy.training";
+
+    private static final long TIMEOUT_MINUTES = 5;
+    private static final Duration STEP_DELAY = Duration.millis(300);
+    private static final String SAMPLE_SHORT_TITLE = "sample";
+    private static final int SAMPLE_DAYS = 7;
+
+    private TrainingRun() {
+    }
+
+    /**
+     * Determine if this JVM is doing a training run.
+     *
+     * @return true if this is the training JVM.
+     */
+    public static boolean isTraining() {
+        return Boolean.getBoolean(TRAINING_PROPERTY);
+    }
+
+    /**
+     * Record an archive by running the application in a new JVM.
+     * The archive is written to a temporary file and moved into place when the run succeeds,
+     * so an archive in use by another JVM is never overwritten while it is mapped.
+     *
+     * @param archive where to write the archive.
+     * @return exit code of the training JVM.
+     * @throws IOException          if the JVM could not be started.
+     * @throws InterruptedException if interrupted while waiting for the run to finish.
+     */
+    public static int train(Path archive) throws IOException, InterruptedException {
+        Path home = Files.createTempDirectory("readsy-training");
+        Path temporaryArchive = archive.resolveSibling(archive.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(archive.toAbsolutePath().getParent());
+            Files.deleteIfExists(temporaryArchive);
+            List<String> command = command(home,
+                    "-XX:ArchiveClassesAtExit=" + temporaryArchive,
+                    "-D" + TRAINING_PROPERTY + "=true");
+            logger.info("Recording class data sharing archive: {}", command);
+            Process process = new ProcessBuilder(command).inheritIO().start();
+            if (!process.waitFor(TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                logger.error("Training run did not finish in {} minutes", TIMEOUT_MINUTES);
+                return 1;
+            }
+            if (process.exitValue() != 0 || !Files.exists(temporaryArchive)) {
+                logger.error("Training run failed with exit code {}", process.exitValue());
+                return process.exitValue() == 0 ? 1 : process.exitValue();
+            }
+            Files.move(temporaryArchive, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Wrote class data sharing archive {}", archive);
+            return 0;
+        } finally {
+            Files.deleteIfExists(temporaryArchive);
+            FileUtils.deleteQuietly(home.toFile());
+        }
+    }
+
+    /**
+     * Build the command to run readsy in a new JVM like this one, with its own home directory.
+     * Options from this JVM are kept, except for class data sharing and debugger options, and
+     * readsy is started from the same class path, or the same module if it was run as one.
+     *
+     * @param home       the user home directory for the new JVM.
+     * @param jvmOptions extra options for the new JVM.
+     * @return the command.
+     */
+    public static List<String> command(Path home, String... jvmOptions) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String option : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (!option.startsWith("-XX:SharedArchiveFile") && !option.startsWith("-XX:ArchiveClassesAtExit")
+                    && !option.contains("AutoCreateSharedArchive") && !option.startsWith("-Xshare")
+                    && !option.startsWith("-agentlib") && !option.startsWith("-Duser.home")
+                    && !option.startsWith("-Djdk.module.main")) {
+                command.add(option);
+            }
+        }
+        command.add("-Duser.home=" + home);
+        command.addAll(List.of(jvmOptions));
+        // module path options are among the input arguments; the main module is not
+        String mainModule = System.getProperty("jdk.module.main");
+        if (mainModule == null) {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(Readsy.class.getName());
+        } else {
+            command.add("-m");
+            command.add(mainModule + "/" + Readsy.class.getName());
+        }
+        return command;
+    }
+
+    /**
+     * Set up a home directory with a configuration and a library holding a sample book.
+     * The sample book is packaged and imported the same way a downloaded book is.
+     *
+     * @param home the home directory.
+     * @throws Exception if the files could not be written or the book could not be imported.
+     */
+    public static void prepareHome(Path home) throws Exception {
+        Path configDirectory = Files.createDirectories(home.resolve(".readsy"));
+        Path library = Files.createDirectories(home.resolve("readsy-library"));
+        Configuration configuration = new Configuration();
+        configuration.setBookDirectory(library.toString());
+        configuration.setWindowWidth(800);
+        configuration.setWindowHeight(600);
+        configuration.setSplitPanePosition(0.4);
+        Files.write(configDirectory.resolve("ReadsyConfig.json"),
+                MapperFactory.getConfigurationWriter().writeValueAsBytes(configuration));
+
+        Path staging = Files.createTempDirectory("readsy-training-book");
+        try {
+            Book book = new Book();
+            book.setTitle("Sample Book");
+            book.setShortTitle(SAMPLE_SHORT_TITLE);
+            book.setAuthor("readsy");
+            book.setVersion("1");
+            book.setStatusFlags(Constants.NOTHING_READ);
+            Files.write(staging.resolve("book.json"), MapperFactory.getBookWriter().writeValueAsBytes(book));
+            try (InputStream in = Objects.requireNonNull(TrainingRun.class.getResourceAsStream("/images/emptycover.png"))) {
+                Files.copy(in, staging.resolve(CoverCache.COVER_FILE_NAME));
+            }
+            PageStore pages = PageStore.open(staging);
+            for (int day = 1; day <= SAMPLE_DAYS; day++) {
+                Page page = new Page();
+                page.setHeading("Day " + day);
+                page.setText("Something new to read on day " + day + ". ".repeat(20));
+                pages.writePage(day, page);
+            }
+            Path archive = home.resolve(SAMPLE_SHORT_TITLE + ".readsy");
+            BookPackager.pack(staging, SAMPLE_SHORT_TITLE, archive, (done, total) -> { });
+            new ImportBooksWorker(library, List.of(archive), List.of()).importBooks(done -> { });
+        } finally {
+            FileUtils.deleteQuietly(staging.toFile());
+        }
+    }
+
+    /**
+     * Show each view in turn, then exit. Called on the JavaFX thread once the stage is showing.
+     *
+     * @param appModel the model.
+     */
+    public static void exercise(AppModel appModel) {
+        LibraryIndex libraryIndex = appModel.getLibraryIndex();
+        if (libraryIndex == null) {
+            step(() -> exercise(appModel));
+            return;
+        }
+        libraryIndex.refresh(Set.of(libraryIndex.getBookDirectory())).thenRun(() -> {
+            Path bookDirectory = libraryIndex.getBookDirectories().stream().findFirst().orElse(null);
+            if (bookDirectory == null) {
+                logger.error("The sample book was not loaded");
+                Platform.exit();
+                return;
+            }
+            appModel.getSearchIndex().update(Set.of(bookDirectory)).join();
+            logger.info("Training search found {} pages", appModel.getSearchIndex().search("something new", 10).size());
+            step(() -> appModel.setActiveState(ActiveState.NEW_BOOK),
+                    () -> {
+                        appModel.setEditorBookDirectory(bookDirectory);
+                        appModel.setBook(libraryIndex.getBook(bookDirectory));
+                        appModel.setActiveState(ActiveState.EDIT_BOOK);
+                    },
+                    () -> appModel.setActiveState(ActiveState.BOOKS),
+                    () -> appModel.setActiveState(ActiveState.WELCOME),
+                    Platform::exit);
+        });
+    }
+
+    /* run each step after a pause, so every view is laid out and rendered */
+    private static void step(Runnable... steps) {
+        if (steps.length == 0) {
+            return;
+        }
+        PauseTransition pause = new PauseTransition(STEP_DELAY);
+        pause.setOnFinished(event -> {
+            steps[0].run();
+            step(Arrays.copyOfRange(steps, 1, steps.length));
+        });
+        pause.play();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+/**
+ * Implemented by controllers that need to know when their view is shown and hidden.
+ * <p>
+ * {@link ViewManager} loads each view once and reuses it, so the constructor and
+ * {@code initialize()} run only once. Anything that depends on the state of the model
+ * when the view is shown, such as the book being edited or the stage handlers, belongs
+ * in {@link #activate()}.
+ * </p>
+ */
+public interface ViewLifecycle {
+
+    /**
+     * Called on the JavaFX thread each time the view becomes the current view.
+     */
+    default void activate() {
+    }
+
+    /**
+     * Called on the JavaFX thread when another view replaces this one.
+     */
+    default void deactivate() {
+    }
+}
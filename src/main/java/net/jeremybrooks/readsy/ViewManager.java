@@ -32,15 +32,49 @@ import net.jeremybrooks.readsy.controllers.EditController;
 import net.jeremybrooks.readsy.controllers.EditStartController;
 import net.jeremybrooks.readsy.controllers.WelcomeController;
 import net.jeremybrooks.readsy.model.AppModel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.net.URL;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Shows the view for the active state of the application.
+ * <p>
+ * Each view and its controller are loaded the first time the state is entered and kept
+ * for the life of the application, so switching back to a view does not parse the FXML
+ * or build the controller again. Controllers implementing {@link ViewLifecycle} are told
+ * when their view is shown and hidden.
+ * </p>
+ * <p>
+ * After a view is shown, the view the user is likely to go to next is loaded on a
+ * background thread, unless the system property {@value #PRELOAD_PROPERTY} is false.
+ * </p>
+ */
 public class ViewManager {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** System property to turn background loading of the next view on or off. */
+    public static final String PRELOAD_PROPERTY = "readsy.views.preload";
 
     private final AppModel appModel ;
     private final Callback<Class<?>, Object> controllerFactory ;
+    private final boolean preloadEnabled = Boolean.parseBoolean(System.getProperty(PRELOAD_PROPERTY, "true"));
+
+    /* views are only touched on the JavaFX thread; preloading hands its result over through a future */
+    private record View(Parent root, Object controller) {
+    }
+    private final Map<ActiveState, View> views = new EnumMap<>(ActiveState.class);
+    private final Map<ActiveState, Future<View>> preloads = new EnumMap<>(ActiveState.class);
+    private ExecutorService preloader;
+    private ActiveState shownState;
 
     private final ReadOnlyObjectWrapper<Parent> currentView = new ReadOnlyObjectWrapper<>();
     public Parent getCurrentView() {
@@ -82,9 +116,75 @@ public class ViewManager {
     }
 
     private void updateView() {
+        ActiveState state = appModel.getActiveState();
+        if (state == shownState) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (shownState != null && views.get(shownState).controller() instanceof ViewLifecycle lifecycle) {
+            lifecycle.deactivate();
+        }
+        View view = getView(state);
+        shownState = state;
+        currentView.set(view.root());
+        if (view.controller() instanceof ViewLifecycle lifecycle) {
+            lifecycle.activate();
+        }
+        logger.debug("Showed {} in {} ms", state, (System.nanoTime() - start) / 1_000_000);
+        preload(nextState(state));
+    }
+
+    /*
+     * Get the cached view for a state, taking it from a preload or loading it now if needed.
+     */
+    private View getView(ActiveState state) {
+        View view = views.get(state);
+        if (view == null) {
+            Future<View> preloaded = preloads.remove(state);
+            if (preloaded != null) {
+                try {
+                    view = preloaded.get();
+                } catch (ExecutionException e) {
+                    logger.warn("Could not preload view for {}, loading it again", state, e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (view == null) {
+                view = load(state);
+            }
+            views.put(state, view);
+        }
+        return view;
+    }
+
+    /*
+     * The state the user is most likely to move to from a state, if its view can be
+     * loaded off the JavaFX thread.
+     */
+    private static ActiveState nextState(ActiveState state) {
+        return switch (state) {
+            case BOOKS -> ActiveState.NEW_BOOK;
+            case NEW_BOOK -> ActiveState.EDIT_BOOK;
+            case WELCOME, EDIT_BOOK -> null;
+        };
+    }
+
+    private void preload(ActiveState state) {
+        if (!preloadEnabled || state == null || views.containsKey(state) || preloads.containsKey(state)) {
+            return;
+        }
+        if (preloader == null) {
+            preloader = Executors.newSingleThreadExecutor(
+                    runnable -> Thread.ofPlatform().name("readsy-view-preloader").daemon().unstarted(runnable));
+        }
+        preloads.put(state, preloader.submit(() -> load(state)));
+    }
+
+    private View load(ActiveState state) {
         try {
             // get the FXML file to load
-            URL resource = switch(appModel.getActiveState()) {
+            URL resource = switch(state) {
                 case WELCOME -> WelcomeController.class.getResource("/net/jeremybrooks/readsy/gui/Welcome.fxml");
                 case BOOKS -> BooksController.class.getResource("/net/jeremybrooks/readsy/gui/Books.fxml");
                 case NEW_BOOK -> EditStartController.class.getResource("/net/jeremybrooks/readsy/gui/EditStart.fxml");
@@ -93,7 +193,8 @@ public class ViewManager {
 
             FXMLLoader loader = new FXMLLoader(resource);
             loader.setControllerFactory(controllerFactory);
-            currentView.set(loader.load());
+            Parent root = loader.load();
+            return new View(root, loader.getController());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
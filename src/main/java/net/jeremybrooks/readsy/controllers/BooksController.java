@@ -21,12 +21,9 @@
 
 package net.jeremybrooks.readsy.controllers;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import javafx.application.Platform;
+import javafx.animation.PauseTransition;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
@@ -34,21 +31,31 @@ import javafx.scene.control.ButtonType;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.SplitPane;
 import javafx.scene.control.TextArea;
+import javafx.scene.control.TextInputDialog;
+import javafx.scene.input.DragEvent;
+import javafx.scene.input.TransferMode;
+import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import net.jeremybrooks.readsy.ActiveState;
 import net.jeremybrooks.readsy.BitHelper;
+import net.jeremybrooks.readsy.BookLocks;
 import net.jeremybrooks.readsy.BookUtils;
 import net.jeremybrooks.readsy.Constants;
 import net.jeremybrooks.readsy.Formatters;
-import net.jeremybrooks.readsy.MapperFactory;
+import net.jeremybrooks.readsy.LibraryIndex;
+import net.jeremybrooks.readsy.PageCache;
+import net.jeremybrooks.readsy.SearchIndex;
+import net.jeremybrooks.readsy.ViewLifecycle;
 import net.jeremybrooks.readsy.gui.BookCell;
 import net.jeremybrooks.readsy.model.AppModel;
 import net.jeremybrooks.readsy.model.Book;
 import net.jeremybrooks.readsy.model.Page;
-import net.jeremybrooks.readsy.workers.RefreshBooksWorker;
+import net.jeremybrooks.readsy.workers.ImportBooksWorker;
 import net.jeremybrooks.readsy.workers.SaveConfigWorker;
 import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.LogManager;
@@ -58,15 +65,21 @@ import java.awt.Desktop;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
-import java.util.stream.Stream;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
-public class BooksController {
+public class BooksController implements ViewLifecycle {
     private static final Logger logger = LogManager.getLogger();
+    private static final int MAX_SEARCH_RESULTS = 100;
 
     private final AppModel appModel;
     @FXML
@@ -89,11 +102,23 @@ public class BooksController {
     private Button btnNextDay;
     private final ObjectProperty<Page> pageObjectProperty = new SimpleObjectProperty<>();
 
-    private final ObservableList<Book> books = FXCollections.observableArrayList();
+    private LibraryIndex libraryIndex;
+    private PauseTransition midnightRefresh;
+    private boolean activated;
 
     public BooksController(AppModel appModel) {
         this.appModel = appModel;
+    }
+
+    /**
+     * Set up the stage for the book list and bring the list up to date.
+     * The library was loaded by {@code initialize()}; coming back from the editor
+     * only reloads the book that was being edited, if it is in the library.
+     */
+    @Override
+    public void activate() {
         appModel.getStage().setTitle("Readsy - " + appModel.getVersion());
+        appModel.getStage().setOnCloseRequest(null);
         appModel.getStage().setOnHiding(event -> {
             // Handle the close event
             appModel.getConfiguration().setWindowX(appModel.getStage().xProperty().intValue());
@@ -103,13 +128,69 @@ public class BooksController {
             appModel.getConfiguration().setSplitPanePosition(splitPane.getDividers().getFirst().getPosition());
             new SaveConfigWorker(appModel);
         });
+        if (activated) {
+            Path editedBook = appModel.getEditorBookDirectory();
+            if (editedBook != null && editedBook.startsWith(libraryIndex.getBookDirectory())) {
+                appModel.getPageCache().invalidate(editedBook);
+                appModel.getCoverCache().invalidate(editedBook);
+                reloadBooksAndSelect(Set.of(editedBook), null);
+            } else {
+                // the date may have changed while the editor was open
+                bookList.refresh();
+                loadPageForSelectedBook();
+            }
+        }
+        activated = true;
+        scheduleMidnightRefresh();
+    }
+
+    @Override
+    public void deactivate() {
+        appModel.getStage().setOnHiding(null);
+        if (midnightRefresh != null) {
+            midnightRefresh.stop();
+            midnightRefresh = null;
+        }
+    }
+
+    /*
+     * Redraw the book list just after midnight, so the unread counts include the new day.
+     * This stops when another view is shown.
+     */
+    private void scheduleMidnightRefresh() {
+        LocalDateTime now = LocalDateTime.now();
+        long millis = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMillis() + 1000;
+        midnightRefresh = new PauseTransition(javafx.util.Duration.millis(millis));
+        midnightRefresh.setOnFinished(event -> {
+            bookList.refresh();
+            scheduleMidnightRefresh();
+        });
+        midnightRefresh.play();
     }
 
     @FXML
     public void initialize() {
-        bookList.setItems(books);
-        bookList.setCellFactory(lv -> new BookCell());
-        reloadBooksAndSelect("");
+        Path bookDirectory = Paths.get(appModel.getConfiguration().getBookDirectory());
+        libraryIndex = appModel.getLibraryIndex();
+        if (libraryIndex == null || !libraryIndex.getBookDirectory().equals(bookDirectory)) {
+            if (libraryIndex != null) {
+                libraryIndex.close();
+            }
+            libraryIndex = new LibraryIndex(bookDirectory, Paths.get(Constants.READSY_LIBRARY_SNAPSHOT));
+            // show the books from the last run right away; the scan below picks up any changes
+            libraryIndex.loadSnapshot();
+            libraryIndex.startWatching();
+            appModel.setLibraryIndex(libraryIndex);
+        }
+        libraryIndex.setOnSaveError(this::showSaveError);
+        libraryIndex.setCoverCache(appModel.getCoverCache());
+        libraryIndex.setSearchIndex(appModel.getSearchIndex());
+        bookList.setItems(libraryIndex.getBooks());
+        bookList.setCellFactory(lv -> new BookCell(appModel.getCoverCache()));
+        bookList.setOnDragOver(this::bookListDragOver);
+        bookList.setOnDragDropped(this::bookListDragDropped);
+        // books from the snapshot are already listed; keep whatever the user selects while the scan runs
+        reloadBooksAndSelect(Set.of(bookDirectory), libraryIndex.getBooks().isEmpty() ? "" : null);
 
         pageObjectProperty.addListener((observable, oldValue, newValue) -> {
             if (newValue == null) {
@@ -173,11 +254,14 @@ public class BooksController {
         loadPageForSelectedBook();
     }
 
-    private void reloadBooksAndSelect(String selectedBookTitle) {
-//        books.clear();
-        Platform.runLater(new RefreshBooksWorker(books, appModel));
-        if (selectedBookTitle != null && !selectedBookTitle.isEmpty()) {
-            Platform.runLater(() -> {
+    /*
+     * Reload the books in the given directories, then select a book by title.
+     * Passing the library directory reloads any book that has changed.
+     * The books are loaded in the background; selection happens once the load is done.
+     */
+    private void reloadBooksAndSelect(Collection<Path> bookDirectories, String selectedBookTitle) {
+        libraryIndex.refresh(bookDirectories).thenRun(() -> {
+            if (selectedBookTitle != null && !selectedBookTitle.isEmpty()) {
                 // select the new book
                 Optional<Book> bookToSelect = bookList.getItems()
                         .stream()
@@ -186,13 +270,11 @@ public class BooksController {
                 bookToSelect.ifPresent(book -> {
                     bookList.getSelectionModel().select(book);
                 });
-            });
-        } else if (selectedBookTitle != null) {
-            Platform.runLater(() -> {
+            } else if (selectedBookTitle != null || bookList.getSelectionModel().isEmpty()) {
                 bookList.getSelectionModel().selectFirst();
-            });
-        }
-        Platform.runLater(this::loadPageForSelectedBook);
+            }
+            loadPageForSelectedBook();
+        });
     }
 
     private void loadPageForSelectedBook() {
@@ -208,11 +290,15 @@ public class BooksController {
             Book book = bookList.getSelectionModel().getSelectedItem();
             if (BookUtils.isPageDateInReadingRange(book)) {
                 int day = BookUtils.getDayOfReadingYear(book);
-                Path bookDir = Paths.get(book.getBookPath()).getParent();
-                Path pagePath = Paths.get(bookDir.toString(), String.format("%d.json", day));
+                Path bookDir = bookDirectoryOf(book);
+                PageCache pageCache = appModel.getPageCache();
                 try {
-                    page = MapperFactory.getObjectMapper()
-                            .readValue(Files.newInputStream(pagePath), Page.class);
+                    page = pageCache.getPage(bookDir, day);
+                    // get the neighbouring days ready in case the user moves to them
+                    int daysInReadingYear = BookUtils.getDaysInReadingYear(book);
+                    pageCache.prefetch(bookDir,
+                            day > 1 ? day - 1 : 0,
+                            day < daysInReadingYear ? day + 1 : 0);
                 } catch (IOException ioe) {
                     page = new Page();
                     page.setHeading("Error");
@@ -223,8 +309,8 @@ public class BooksController {
                 page.setHeading("Outside Reading Year");
                 page.setText(String.format("The requested date of %s is outside the reading year for this book%n%nThis book is scheduled to be read from %s through %s.",
                         Formatters.longMonthAndDayAndYearFormatter.format(book.getPageDate()),
-                        Formatters.longMonthAndDayAndYearFormatter.format(LocalDate.parse(book.getReadingStartDate(), Formatters.shortISOFormatter)),
-                        Formatters.longMonthAndDayAndYearFormatter.format(LocalDate.parse(book.getReadingEndDate(), Formatters.shortISOFormatter))));
+                        Formatters.longMonthAndDayAndYearFormatter.format(book.getReadingStart()),
+                        Formatters.longMonthAndDayAndYearFormatter.format(book.getReadingEnd())));
             }
         }
         pageObjectProperty.setValue(page);
@@ -241,23 +327,27 @@ public class BooksController {
         bh.setRead(dayOfReadingYear, cbxRead.isSelected());
         book.setStatusFlags(bh.toString());
         try {
-            Files.write(Paths.get(book.getBookPath()),
-                    MapperFactory.getObjectMapper().writeValueAsBytes(book));
-            reloadBooksAndSelect(book.getTitle());
+            libraryIndex.save(book);
+            bookList.getSelectionModel().select(book);
         } catch (Exception ex) {
-            logger.error("Error while writing book {} to file {}", book.getTitle(), book.getBookPath(), ex);
-            Alert a = new Alert(Alert.AlertType.ERROR);
-            a.setTitle("Error");
-            a.setHeaderText("There was an error writing data.");
-            a.setContentText(String.format("Something went wrong while trying to save reading state.%n" +
-                    "Book title: %s%n" +
-                    "      File: %s%n" +
-                    "     Error: %s%n" +
-                    "See the logs for more detail.", book.getTitle(), book.getBookPath(), ex.getMessage()));
-            a.showAndWait();
+            showSaveError(book, ex);
         }
     }
 
+    /* Tell the user that the reading state for a book could not be saved. */
+    private void showSaveError(Book book, Exception ex) {
+        logger.error("Error while writing book {} to file {}", book.getTitle(), book.getBookPath(), ex);
+        Alert a = new Alert(Alert.AlertType.ERROR);
+        a.setTitle("Error");
+        a.setHeaderText("There was an error writing data.");
+        a.setContentText(String.format("Something went wrong while trying to save reading state.%n" +
+                "Book title: %s%n" +
+                "      File: %s%n" +
+                "     Error: %s%n" +
+                "See the logs for more detail.", book.getTitle(), book.getBookPath(), ex.getMessage()));
+        a.showAndWait();
+    }
+
     @FXML
     private void menuOpenEditor() {
         appModel.setActiveState(ActiveState.NEW_BOOK);
@@ -267,68 +357,149 @@ public class BooksController {
     private void addBook() {
         FileChooser chooser = new FileChooser();
         chooser.setInitialDirectory(Paths.get(System.getProperty("user.home"), "Downloads").toFile());
-        chooser.setTitle("Open a Readsy Book");
+        chooser.setTitle("Open Readsy Books");
         chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Readsy files", "*.readsy"));
-        File file = chooser.showOpenDialog(appModel.getStage());
-        if (file != null) {
-            try {
-                // unzip to temp dir, getting book directory name
-                Path source = Paths.get(file.getAbsolutePath());
-                Path tempDir = Files.createTempDirectory("readsy");
-                BookUtils.unzip(source, tempDir);
-                Path newBookDir;
-                try (Stream<Path> files = Files.list(tempDir)) {
-                    newBookDir = files.findFirst().orElseThrow();
+        List<File> files = chooser.showOpenMultipleDialog(appModel.getStage());
+        if (files != null && !files.isEmpty()) {
+            importBooks(files.stream().map(File::toPath).toList());
+        }
+    }
+
+    /*
+     * Import books in the background, showing progress and the result for each file.
+     * The library is refreshed once, when all files have been imported.
+     */
+    private void importBooks(List<Path> archives) {
+        ImportBooksWorker worker = new ImportBooksWorker(Paths.get(appModel.getConfiguration().getBookDirectory()),
+                archives, List.copyOf(bookList.getItems()));
+
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setMaxWidth(Double.MAX_VALUE);
+        progressBar.progressProperty().bind(worker.progressProperty());
+        ListView<String> resultList = new ListView<>();
+        resultList.setPrefHeight(200);
+        VBox content = new VBox(10, progressBar, resultList);
+        content.setPrefWidth(500);
+
+        Alert progressAlert = new Alert(Alert.AlertType.INFORMATION);
+        progressAlert.initOwner(appModel.getStage());
+        progressAlert.setTitle("Add Books");
+        progressAlert.setHeaderText(String.format("Adding %d book(s)...", archives.size()));
+        progressAlert.getDialogPane().setContent(content);
+        progressAlert.show();
+
+        worker.setOnSucceeded(event -> {
+            List<ImportBooksWorker.Result> results = worker.getValue();
+            Set<Path> imported = new HashSet<>();
+            String selectedTitle = "";
+            for (ImportBooksWorker.Result result : results) {
+                resultList.getItems().add(String.format("%s: %s",
+                        result.archive().getFileName(), result.message()));
+                if (result.status() == ImportBooksWorker.Status.IMPORTED) {
+                    imported.add(result.bookDirectory());
+                    selectedTitle = result.title();
                 }
+            }
+            progressAlert.setHeaderText(String.format("Added %d of %d book(s).", imported.size(), results.size()));
+            if (!imported.isEmpty()) {
+                reloadBooksAndSelect(imported, selectedTitle);
+            }
+        });
+        worker.setOnFailed(event -> {
+            logger.error("Error while adding books", worker.getException());
+            progressAlert.setAlertType(Alert.AlertType.ERROR);
+            progressAlert.setHeaderText("There was an error when trying to add the books.");
+            resultList.getItems().add(String.valueOf(worker.getException().getMessage()));
+            reloadBooksAndSelect(Set.of(Paths.get(appModel.getConfiguration().getBookDirectory())), "");
+        });
+        Thread.ofPlatform().name("readsy-import-books").daemon().start(worker);
+    }
 
-                // load the book.json file
-                ObjectMapper mapper = MapperFactory.getObjectMapper();
-                Book newBook = mapper.readValue(Paths.get(String.valueOf(newBookDir), "book.json").toFile(), Book.class);
-
-                // check to see if the book exists
-                if (bookList.getItems().stream()
-                        .anyMatch(book -> book.getTitle().equals(newBook.getTitle()))) {
-                    logger.error("Book {} already exists, can't add it again.", newBook.getTitle());
-                    Alert errorAlert = new Alert(Alert.AlertType.INFORMATION);
-                    errorAlert.setTitle("Book Exists");
-                    errorAlert.setHeaderText(String.format("The book \"%s\" is already in your library.",
-                            newBook.getTitle()));
-                    errorAlert.showAndWait();
-                } else {
-                    // set fields in book
-                    if (newBook.getValidYear() == 0) {
-                        LocalDate now = LocalDate.now();
-                        newBook.setReadingStartDate(Formatters.shortISOFormatter.format(now));
-                        newBook.setReadingEndDate(Formatters.shortISOFormatter.format(now.plusYears(1).minusDays(1)));
-                    } else {
-                        newBook.setReadingStartDate(LocalDate.of(newBook.getValidYear(), 1, 1)
-                                .format(Formatters.shortISOFormatter));
-                        newBook.setReadingEndDate(LocalDate.of(newBook.getValidYear(), 12, 31)
-                                .format(Formatters.shortISOFormatter));
-                    }
-                    newBook.setBookPath(String.valueOf(Paths.get(appModel.getConfiguration().getBookDirectory(), String.valueOf(newBookDir.getFileName()))));
+    private void bookListDragOver(DragEvent event) {
+        if (event.getDragboard().hasFiles() && event.getDragboard().getFiles().stream()
+                .anyMatch(file -> file.getName().endsWith(".readsy"))) {
+            event.acceptTransferModes(TransferMode.COPY);
+        }
+        event.consume();
+    }
 
-                    // write the updated book.json file
-                    mapper.writeValue(Paths.get(String.valueOf(newBookDir), "book.json").toFile(), newBook);
+    private void bookListDragDropped(DragEvent event) {
+        List<Path> archives = event.getDragboard().getFiles().stream()
+                .filter(file -> file.getName().endsWith(".readsy"))
+                .map(File::toPath)
+                .toList();
+        event.setDropCompleted(!archives.isEmpty());
+        event.consume();
+        if (!archives.isEmpty()) {
+            importBooks(archives);
+        }
+    }
 
-                    // move the new book directory to the book directory
-                    FileUtils.moveDirectory(newBookDir.toFile(), new File(newBook.getBookPath()));
+    /*
+     * Ask for words to search for, then show the matching pages from every book.
+     * Choosing a result selects the book and shows the page.
+     */
+    @FXML
+    private void searchBooks() {
+        TextInputDialog queryDialog = new TextInputDialog();
+        queryDialog.initOwner(appModel.getStage());
+        queryDialog.setTitle("Search Books");
+        queryDialog.setHeaderText("Search the text of every book in the library.");
+        queryDialog.setContentText("Search for:");
+        Optional<String> query = queryDialog.showAndWait().map(String::trim).filter(q -> !q.isEmpty());
+        if (query.isEmpty()) {
+            return;
+        }
+        // the library keeps the search index up to date, so searching is only a lookup
+        showSearchResults(query.get(), appModel.getSearchIndex().search(query.get(), MAX_SEARCH_RESULTS));
+    }
 
-                    // reload book list
-                    reloadBooksAndSelect(newBook.getTitle());
+    private void showSearchResults(String query, List<SearchIndex.Result> results) {
+        ListView<SearchIndex.Result> resultList = new ListView<>();
+        resultList.setPrefSize(500, 300);
+        resultList.setCellFactory(lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(SearchIndex.Result result, boolean empty) {
+                super.updateItem(result, empty);
+                if (empty || result == null) {
+                    setText(null);
+                } else {
+                    Book book = libraryIndex.getBook(result.bookDirectory());
+                    setText(String.format("%s - Day %d",
+                            book == null ? result.bookDirectory().getFileName() : book.getTitle(), result.day()));
                 }
-            } catch (Exception ioe) {
-                logger.error("Error while adding book {}", file, ioe);
-                Alert errorAlert = new Alert(Alert.AlertType.ERROR);
-                errorAlert.setTitle("Error");
-                errorAlert.setHeaderText("There was an error when trying to add the book.");
-                errorAlert.setContentText(String.format("""
-                         File: %s
-                        Error: %s
-                        See the logs for more detail.""", file.getAbsolutePath(), ioe.getMessage()));
-                errorAlert.showAndWait();
             }
+        });
+        results.stream()
+                .filter(result -> libraryIndex.getBook(result.bookDirectory()) != null)
+                .forEach(resultList.getItems()::add);
+
+        Alert a = new Alert(Alert.AlertType.INFORMATION);
+        a.initOwner(appModel.getStage());
+        a.setTitle("Search Books");
+        a.setHeaderText(resultList.getItems().isEmpty()
+                ? String.format("No pages found for \"%s\".", query)
+                : String.format("Pages found for \"%s\". Double click a page to show it.", query));
+        a.getDialogPane().setContent(resultList);
+        resultList.setOnMouseClicked(event -> {
+            SearchIndex.Result result = resultList.getSelectionModel().getSelectedItem();
+            if (event.getClickCount() == 2 && result != null) {
+                a.close();
+                showPage(libraryIndex.getBook(result.bookDirectory()), result.day());
+            }
+        });
+        a.show();
+    }
+
+    /* Select a book and show the page for a day of its reading year. */
+    private void showPage(Book book, int day) {
+        if (book == null) {
+            return;
         }
+        bookList.getSelectionModel().select(book);
+        bookList.scrollTo(book);
+        book.setPageDate(book.getReadingStart().plusDays(day - 1));
+        loadPageForSelectedBook();
     }
 
     @FXML
@@ -340,8 +511,18 @@ public class BooksController {
         a.showAndWait();
         if (a.getResult() == ButtonType.OK) {
             try {
-                FileUtils.deleteDirectory(Paths.get(book.getBookPath()).getParent().toFile());
-                reloadBooksAndSelect("");
+                // drop the cached pages and cover first, so nothing reloads them from the deleted files
+                appModel.getPageCache().invalidate(bookDirectoryOf(book));
+                appModel.getCoverCache().invalidate(bookDirectoryOf(book));
+                appModel.getSearchIndex().remove(bookDirectoryOf(book));
+                Lock lock = BookLocks.forBook(bookDirectoryOf(book));
+                lock.lock();
+                try {
+                    FileUtils.deleteDirectory(bookDirectoryOf(book).toFile());
+                } finally {
+                    lock.unlock();
+                }
+                reloadBooksAndSelect(Set.of(bookDirectoryOf(book)), "");
             } catch (Exception e) {
                 logger.error("Error while deleting book from {}", book.getBookPath(), e);
                 Alert errorAlert = new Alert(Alert.AlertType.ERROR);
@@ -385,8 +566,8 @@ public class BooksController {
                             Reading from %s - %s
                             Book Version: %s""",
                     book.getValidYear() == 0 ? "any year" : "the year " + book.getValidYear(),
-                    Formatters.longMonthAndDayAndYearFormatter.format(LocalDate.parse(book.getReadingStartDate(), Formatters.shortISOFormatter)),
-                    Formatters.longMonthAndDayAndYearFormatter.format(LocalDate.parse(book.getReadingEndDate(), Formatters.shortISOFormatter)),
+                    Formatters.longMonthAndDayAndYearFormatter.format(book.getReadingStart()),
+                    Formatters.longMonthAndDayAndYearFormatter.format(book.getReadingEnd()),
                     book.getVersion()));
         }
         a.showAndWait();
@@ -408,8 +589,9 @@ public class BooksController {
             if (result.isPresent() && result.get() == ButtonType.OK) {
                 book.setStatusFlags(Constants.NOTHING_READ);
                 try {
-                    MapperFactory.getObjectMapper().writeValue(Paths.get(book.getBookPath()).toFile(), book);
-                    reloadBooksAndSelect(book.getTitle());
+                    libraryIndex.save(book);
+                    bookList.getSelectionModel().select(book);
+                    loadPageForSelectedBook();
                 } catch (Exception e) {
                     logger.error("Error while resetting reading status.", e);
                     Alert ea = new Alert(Alert.AlertType.ERROR);
@@ -445,7 +627,7 @@ public class BooksController {
                     The start and end reading dates cannot be altered.""", book.getValidYear()));
             a.showAndWait();
         } else {
-            DatePicker datePicker = new DatePicker(LocalDate.parse(book.getReadingStartDate(), Formatters.shortISOFormatter));
+            DatePicker datePicker = new DatePicker(book.getReadingStart());
             Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
             alert.setTitle("Select A Date");
             alert.setHeaderText("""
@@ -461,12 +643,12 @@ public class BooksController {
                 if (response == ButtonType.OK) {
                     LocalDate selectedDate = datePicker.getValue();
                     book.setStatusFlags(Constants.NOTHING_READ);
-                    book.setReadingStartDate(selectedDate.format(Formatters.shortISOFormatter));
-                    book.setReadingEndDate(selectedDate.plusYears(1).minusDays(1)
-                            .format(Formatters.shortISOFormatter));
+                    book.setReadingStart(selectedDate);
+                    book.setReadingEnd(selectedDate.plusYears(1).minusDays(1));
                     try {
-                        MapperFactory.getObjectMapper().writeValue(Paths.get(book.getBookPath()).toFile(), book);
-                        reloadBooksAndSelect(book.getTitle());
+                        libraryIndex.save(book);
+                        bookList.getSelectionModel().select(book);
+                        loadPageForSelectedBook();
                     } catch (Exception e) {
                         logger.error("Error while changing reading start date.", e);
                         Alert ea = new Alert(Alert.AlertType.ERROR);
@@ -479,4 +661,8 @@ public class BooksController {
             });
         }
     }
+
+    private static Path bookDirectoryOf(Book book) {
+        return Paths.get(book.getBookPath()).getParent();
+    }
 }
\ No newline at end of file
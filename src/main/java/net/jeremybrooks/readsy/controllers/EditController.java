@@ -21,7 +21,6 @@
 
 package net.jeremybrooks.readsy.controllers;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -30,6 +29,7 @@ import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
@@ -38,29 +38,45 @@ import javafx.util.StringConverter;
 import net.jeremybrooks.readsy.ActiveState;
 import net.jeremybrooks.readsy.Formatters;
 import net.jeremybrooks.readsy.MapperFactory;
+import net.jeremybrooks.readsy.PageCompleteness;
+import net.jeremybrooks.readsy.PageStore;
+import net.jeremybrooks.readsy.ViewLifecycle;
 import net.jeremybrooks.readsy.model.AppModel;
 import net.jeremybrooks.readsy.model.Page;
+import net.jeremybrooks.readsy.workers.BookWriteQueue;
+import net.jeremybrooks.readsy.workers.PackageBookWorker;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.nio.charset.StandardCharsets;
-import java.nio.file.FileVisitResult;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.StandardCopyOption;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDate;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-public class EditController {
+public class EditController implements ViewLifecycle {
     private static final Logger logger = LogManager.getLogger();
+    /* how long to wait after leaving a changed page before writing it */
+    private static final long AUTOSAVE_DELAY_MILLIS = 1000;
     private final AppModel appModel;
     SimpleObjectProperty<LocalDate> localDateProperty = new SimpleObjectProperty<>();
     private final StringProperty heading = new SimpleStringProperty();
     private final StringProperty text = new SimpleStringProperty();
+    private PageStore pageStore;
+    private PageCompleteness completeness;
+    private boolean completenessChanged;
+    private volatile boolean pagesWritten;
+    /* pages edited in this session, by day; these are newer than the files until the write queue is flushed */
+    private final Map<Integer, Page> editedPages = new HashMap<>();
+    private BookWriteQueue writeQueue;
+    private boolean dirty;
+    private boolean loadingPage;
     @FXML
     Label lblDirectory;
     @FXML
@@ -88,82 +104,132 @@ public class EditController {
 
     public EditController(AppModel appModel) {
         this.appModel = appModel;
+    }
+
+    @FXML
+    public void initialize() {
+        StringConverter<LocalDate> converter = new StringConverter<>() {
+            @Override
+            public LocalDate fromString(String string) {
+                return string == null || string.isEmpty() ? null : LocalDate.parse(string, Formatters.longMonthAndDayFormatter);
+            }
+
+            @Override
+            public String toString(LocalDate date) {
+                return date == null ? null : Formatters.longMonthAndDayFormatter.format(date);
+            }
+        };
+
+        lblDate.textProperty().bindBidirectional(localDateProperty, converter);
+        txtHeading.textProperty().bindBidirectional(heading);
+        txtText.textProperty().bindBidirectional(text);
+        heading.addListener((observable, oldValue, newValue) -> dirty |= !loadingPage);
+        text.addListener((observable, oldValue, newValue) -> dirty |= !loadingPage);
+    }
+
+    /**
+     * Open the book in the editor book directory and show its first incomplete page.
+     */
+    @Override
+    public void activate() {
         // if the window is closed, delegate to the same action as when
         // the user clicks the Done button
         appModel.getStage().setOnCloseRequest(event -> {
             event.consume();
             done();
         });
-    }
-
-    @FXML
-    public void initialize() {
-        lblDirectory.setText(appModel.getEditorBookDirectory().toString());
-        lblTitle.setText(appModel.getBook().getTitle());
-        lblShortTitle.setText(appModel.getBook().getShortTitle());
-        lblAuthor.setText(appModel.getBook().getAuthor());
-        lblYear.setText(appModel.getBook().getValidYear() == 0 ? "Any" : String.valueOf(appModel.getBook().getValidYear()));
+        editedPages.clear();
+        writeQueue = new BookWriteQueue(AUTOSAVE_DELAY_MILLIS, this::fileWritten);
+        completeness = null;
+        completenessChanged = false;
+        pagesWritten = false;
+        pageStore = null;
+        try {
+            pageStore = PageStore.open(appModel.getEditorBookDirectory());
+        } catch (Exception e) {
+            logger.error("Error opening pages in {}", appModel.getEditorBookDirectory(), e);
+            Alert a = new Alert(Alert.AlertType.ERROR);
+            a.initOwner(appModel.getStage());
+            a.setTitle("File Error");
+            a.setHeaderText("Error while reading the book.");
+            a.setContentText(String.format("""
+                    There was an error while reading the pages in
+                    %s
+                    Please check the logs for details.""", appModel.getEditorBookDirectory()));
+            a.showAndWait();
+            Platform.runLater(() -> appModel.setActiveState(ActiveState.BOOKS));
+            return;
+        }
         if (appModel.getBook().getValidYear() == 0) {
             localDateProperty.setValue(LocalDate.of(2013, 1, 1));
         } else {
             localDateProperty.setValue(LocalDate.of(appModel.getBook().getValidYear(), 1, 1));
         }
+        try {
+            completeness = PageCompleteness.open(pageStore, localDateProperty.get().lengthOfYear());
+        } catch (Exception e) {
+            logger.error("Error checking pages in {}", appModel.getEditorBookDirectory(), e);
+        }
+        lblDirectory.setText(appModel.getEditorBookDirectory().toString());
+        lblTitle.setText(appModel.getBook().getTitle());
+        lblShortTitle.setText(appModel.getBook().getShortTitle());
+        lblAuthor.setText(appModel.getBook().getAuthor());
+        lblYear.setText(appModel.getBook().getValidYear() == 0 ? "Any" : String.valueOf(appModel.getBook().getValidYear()));
         Integer day = findFirstEmptyDay();
         if (day == null) {
             day = 1;
         }
         localDateProperty.setValue(localDateProperty.get().withDayOfYear(day));
         readPageAndSetText();
-        StringConverter<LocalDate> converter = new StringConverter<>() {
-            @Override
-            public LocalDate fromString(String string) {
-                return string == null || string.isEmpty() ? null : LocalDate.parse(string, Formatters.longMonthAndDayFormatter);
-            }
-
-            @Override
-            public String toString(LocalDate date) {
-                return date == null ? null : Formatters.longMonthAndDayFormatter.format(date);
-            }
-        };
 
+        imgCover.setImage(null);
         Path coverPath = Paths.get(String.valueOf(appModel.getEditorBookDirectory()), "cover.png");
         if (Files.exists(coverPath)) {
-            try {
-                imgCover.setImage(new Image(Files.newInputStream(coverPath)));
+            try (InputStream in = Files.newInputStream(coverPath)) {
+                imgCover.setImage(new Image(in));
             } catch (Exception e) {
                 logger.error("Could not read cover from {}", coverPath, e);
             }
         }
-
-        lblDate.textProperty().bindBidirectional(localDateProperty, converter);
-        txtHeading.textProperty().bindBidirectional(heading);
-        txtText.textProperty().bindBidirectional(text);
         Platform.runLater(() -> txtHeading.requestFocus());
     }
 
+    /**
+     * Write anything still waiting to be saved if the editor is left without clicking Done.
+     */
+    @Override
+    public void deactivate() {
+        appModel.getStage().setOnCloseRequest(null);
+        writeEverything();
+    }
 
     /*
-     * Get a sorted list of all the json files, except the book.json file,
-     * then read them to find the first one with an empty heading
+     * Write the pages waiting in the queue, then the completeness flags, so the
+     * flags are saved with the fingerprint of the pages they describe. If any pages
+     * were written, the book is indexed again for searching.
      */
-    private Integer findFirstEmptyDay() {
-        logger.debug("Looking for first empty page.");
-        final ObjectMapper mapper = MapperFactory.getObjectMapper();
-        for (int day = 1; day < localDateProperty.get().lengthOfYear(); day++) {
-            Path p = Paths.get(String.valueOf(appModel.getEditorBookDirectory()), day + ".json");
-            logger.debug("Checking {}", p);
+    private void writeEverything() {
+        writeQueue.close();
+        if (pagesWritten) {
+            appModel.getSearchIndex().update(Set.of(appModel.getEditorBookDirectory()));
+            pagesWritten = false;
+        }
+        if (completeness != null && completenessChanged) {
             try {
-                Page page = mapper.readValue(p.toFile(), Page.class);
-                if (page.getHeading().isEmpty() || page.getText().isEmpty()) {
-                    logger.debug("Found empty page at path {}", p);
-                    return day;
-                }
+                completeness.save();
+                completenessChanged = false;
             } catch (Exception e) {
-                logger.error("Error reading path {}", p, e);
+                logger.warn("Could not save completeness flags for {}", appModel.getEditorBookDirectory(), e);
             }
         }
-        // no empty page found
-        return null;
+    }
+
+
+    /*
+     * Find the first page with an empty heading or text
+     */
+    private Integer findFirstEmptyDay() {
+        return completeness == null ? null : completeness.getFirstIncompleteDay();
     }
 
 
@@ -195,101 +261,145 @@ public class EditController {
 
     private void readPageAndSetText() {
         int day = localDateProperty.get().getDayOfYear();
-        Path p = Paths.get(String.valueOf(appModel.getEditorBookDirectory()), day + ".json");
+        loadingPage = true;
         try {
-            Page page = MapperFactory.getObjectMapper().readValue(p.toFile(), Page.class);
+            // pages edited in this session may not have been written yet
+            Page page = editedPages.get(day);
+            if (page == null) {
+                try {
+                    page = pageStore.readPage(day);
+                } catch (NoSuchFileException e) {
+                    // the library may have packed the book's pages since it was opened
+                    pageStore = PageStore.open(appModel.getEditorBookDirectory());
+                    page = pageStore.readPage(day);
+                }
+            }
             heading.set(page.getHeading());
             text.set(page.getText());
         } catch (Exception e) {
             logger.error("Error reading page for day {}", day , e);
             heading.set("");
             text.set("");
+        } finally {
+            loadingPage = false;
+            dirty = false;
         }
     }
 
+    /*
+     * Queue the current page to be written in the background, if it has changed.
+     */
     private void saveEntry() {
+        if (!dirty || pageStore == null) {
+            return;
+        }
         Page page = new Page();
         page.setHeading(txtHeading.getText().trim());
         page.setText(txtText.getText());
-        Path pagePath = Paths.get(String.valueOf(appModel.getEditorBookDirectory()),
-                localDateProperty.get().getDayOfYear() + ".json");
+        int day = localDateProperty.get().getDayOfYear();
+        Path pagePath = pageStore.getPagePath(day);
         logger.debug("Saving entry at path {}", pagePath);
         try {
-            Files.writeString(pagePath, MapperFactory.getObjectMapper().writeValueAsString(page), StandardCharsets.UTF_8);
+            editedPages.put(day, page);
+            writeQueue.save(pagePath, MapperFactory.getPageWriter().writeValueAsBytes(page));
+            if (completeness != null && completeness.update(day, page)) {
+                completenessChanged = true;
+            }
+            dirty = false;
         } catch (Exception e) {
-            logger.error("Error writing page to file at path {}", pagePath, e);
-            Alert a = new Alert(Alert.AlertType.ERROR);
-            a.initOwner(appModel.getStage());
-            a.setTitle("File Error");
-            a.setHeaderText("Error while writing file.");
-            a.setContentText(String.format("""
-                    There was an error while writing the page to file.
-                    The file path was %s
-                    Please check the logs for details.""", pagePath));
-            a.showAndWait();
+            showWriteError(pagePath, e);
+        }
+    }
+
+    /*
+     * Called on the writer thread after each file is written.
+     */
+    private void fileWritten(Path file, Exception error) {
+        if (error != null) {
+            Platform.runLater(() -> showWriteError(file, error));
+        } else {
+            int day = PageStore.dayOf(file);
+            if (day > 0) {
+                pageStore.pageWritten(day);
+                pagesWritten = true;
+            }
         }
+    }
 
+    private void showWriteError(Path pagePath, Exception e) {
+        logger.error("Error writing page to file at path {}", pagePath, e);
+        Alert a = new Alert(Alert.AlertType.ERROR);
+        a.initOwner(appModel.getStage());
+        a.setTitle("File Error");
+        a.setHeaderText("Error while writing file.");
+        a.setContentText(String.format("""
+                There was an error while writing the page to file.
+                The file path was %s
+                Please check the logs for details.""", pagePath));
+        a.showAndWait();
     }
 
+    /*
+     * Write the .readsy and .zip files in the background, showing progress in a dialog.
+     */
     private void makeZipFiles() {
-        Path zipFileName = Paths.get(String.valueOf(appModel.getEditorBookDirectory().getParent()),
-                lblShortTitle.getText() + ".zip");
-        try (ZipOutputStream zipStream = new ZipOutputStream(Files.newOutputStream(zipFileName))) {
-           Files.walkFileTree(appModel.getEditorBookDirectory(), new SimpleFileVisitor<>() {
-               @Override
-               public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
-                   try {
-                       Path targetFile = appModel.getEditorBookDirectory().relativize(file);
-                       zipStream.putNextEntry(new ZipEntry(lblShortTitle.getText() + "/" + targetFile));
-                       byte[] bytes = Files.readAllBytes(file);
-                       zipStream.write(bytes, 0, bytes.length);
-                       zipStream.closeEntry();
-                   } catch (Exception e) {
-                       logger.error("Error writing zip file.", e);
-                       throw new RuntimeException("Error writing zip file.", e);
-                   }
-                   return FileVisitResult.CONTINUE;
-               }
-           });
-        } catch (Exception e) {
-            logger.error("Error while creating zip files", e);
-            Alert a = new Alert(Alert.AlertType.ERROR);
-            a.initOwner(appModel.getStage());
+        PackageBookWorker worker = new PackageBookWorker(appModel.getEditorBookDirectory(), lblShortTitle.getText());
+
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(400);
+        progressBar.progressProperty().bind(worker.progressProperty());
+        Alert a = new Alert(Alert.AlertType.INFORMATION);
+        a.initOwner(appModel.getStage());
+        a.setTitle("Package Book");
+        a.setHeaderText("Creating the book file.");
+        a.getDialogPane().setContent(progressBar);
+        a.show();
+
+        worker.setOnSucceeded(event -> {
+            a.setHeaderText("The book file has been created.");
+            a.setContentText(String.valueOf(worker.getValue()));
+        });
+        worker.setOnFailed(event -> {
+            logger.error("Error while creating zip files", worker.getException());
+            a.setAlertType(Alert.AlertType.ERROR);
             a.setTitle("I/O Error");
             a.setHeaderText("There was an error creating the zip files.");
-            a.setContentText("The error message was \n" + e.getMessage() + "\n" +
-                    "Check the logs for more details.");
-            a.showAndWait();
-        }
-            Path readsyFileName = Paths.get(String.valueOf(appModel.getEditorBookDirectory().getParent()),
-                    lblShortTitle.getText() + ".readsy");
-        try {
-            Files.copy(zipFileName, readsyFileName, StandardCopyOption.REPLACE_EXISTING);
-        } catch (Exception e) {
-            logger.error("Error while copying zip file {} to {}", zipFileName, readsyFileName, e);
-            Alert a = new Alert(Alert.AlertType.ERROR);
-            a.initOwner(appModel.getStage());
-            a.setTitle("I/O Error");
-            a.setHeaderText("There was an error copying the zip file.");
-            a.setContentText("The error message was \n" + e.getMessage() + "\n" +
+            a.getDialogPane().setContent(null);
+            a.setContentText("The error message was \n" + worker.getException().getMessage() + "\n" +
                     "Check the logs for more details.");
-            a.showAndWait();        }
+        });
+        Thread.ofPlatform().name("readsy-package-book").daemon().start(worker);
     }
 
-    /* Check for any blank pages and warn the user. */
+    /* Check for any blank pages and warn the user, listing the blank days. */
     private void validatePages() {
-        if (findFirstEmptyDay() != null) {
+        if (completeness == null) {
+            return;
+        }
+        List<Integer> blankDays = completeness.getIncompleteDays();
+        if (!blankDays.isEmpty()) {
+            LocalDate firstDay = localDateProperty.get().withDayOfYear(1);
+            String days = blankDays.stream()
+                    .map(day -> Formatters.longMonthAndDayFormatter.format(firstDay.plusDays(day - 1)))
+                    .collect(Collectors.joining("\n"));
+            TextArea dayList = new TextArea(days);
+            dayList.setEditable(false);
+            dayList.setPrefRowCount(10);
             Alert a = new Alert(Alert.AlertType.WARNING);
             a.initOwner(appModel.getStage());
             a.setTitle("Validation Warning");
             a.setHeaderText("Some problems were found in your book.");
-            a.setContentText("- There are some blank headings or text");
+            a.setContentText(String.format("- There are %d days with blank headings or text", blankDays.size()));
+            a.getDialogPane().setExpandableContent(dayList);
+            a.getDialogPane().setExpanded(true);
             a.showAndWait();
         }
     }
 
     public void done() {
         saveEntry();
+        // write everything before validating and packaging the book
+        writeEverything();
         validatePages();
         makeZipFiles();
         appModel.setActiveState(ActiveState.BOOKS);
@@ -32,9 +32,9 @@ import javafx.stage.FileChooser;
 import net.jeremybrooks.readsy.ActiveState;
 import net.jeremybrooks.readsy.Constants;
 import net.jeremybrooks.readsy.MapperFactory;
+import net.jeremybrooks.readsy.ViewLifecycle;
 import net.jeremybrooks.readsy.model.AppModel;
 import net.jeremybrooks.readsy.model.Book;
-import net.jeremybrooks.readsy.model.Page;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -46,10 +46,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Calendar;
-import java.util.GregorianCalendar;
 
-public class EditStartController {
+public class EditStartController implements ViewLifecycle {
     private static final Logger logger = LogManager.getLogger();
     private final AppModel appModel;
     @FXML
@@ -70,10 +68,27 @@ public class EditStartController {
     @FXML
     private Button btnChangeCover;
     private byte[] coverImageBytes;
+    private byte[] emptyCoverBytes;
 
     public EditStartController(AppModel appModel) {
         this.appModel = appModel;
+    }
+
+    @FXML
+    public void initialize() {
+        try(InputStream in = EditStartController.class.getResourceAsStream("/images/emptycover.png")) {
+            assert in != null;
+            emptyCoverBytes = in.readAllBytes();
+        } catch (Exception e) {
+            logger.warn("Could not read bytes from emptycover.png", e);
+        }
+    }
 
+    /**
+     * Clear the form, so each new book starts from the empty cover and blank fields.
+     */
+    @Override
+    public void activate() {
         appModel.getStage().setOnCloseRequest(event -> {
             // Handle the close event
             System.out.println("Stage is closing");
@@ -81,18 +96,20 @@ public class EditStartController {
             event.consume();
             appModel.setActiveState(ActiveState.BOOKS);
         });
-    }
-
-    @FXML
-    public void initialize() {
-        try(InputStream in = EditStartController.class.getResourceAsStream("/images/emptycover.png")) {
-            assert in != null;
-            coverImageBytes = in.readAllBytes();
+        txtTitle.clear();
+        txtShortTitle.clear();
+        txtAuthor.clear();
+        txtYear.clear();
+        txtVersion.clear();
+        coverImageBytes = emptyCoverBytes;
+        if (coverImageBytes != null) {
             imgCover.setImage(new Image(new ByteArrayInputStream(coverImageBytes)));
-        } catch (Exception e) {
-            logger.warn("Could not read bytes from emptycover.png", e);
         }
+    }
 
+    @Override
+    public void deactivate() {
+        appModel.getStage().setOnCloseRequest(null);
     }
 
     @FXML
@@ -130,7 +147,7 @@ public class EditStartController {
         Path p = Paths.get(directory.getAbsolutePath(), "book.json");
         if (Files.exists(p)) {
             try {
-                Book book = MapperFactory.getObjectMapper().readValue(p.toFile(), Book.class);
+                Book book = MapperFactory.getBookReader().readValue(p.toFile());
                 appModel.setEditorBookDirectory(p.getParent());
                 appModel.setBook(book);
                 appModel.setActiveState(ActiveState.EDIT_BOOK);
@@ -179,31 +196,11 @@ public class EditStartController {
                 try {
                     Files.createDirectories(directory);
 
-                    // create empty files for dates
-                    int numberOfEntries = 365;
-                    int day = 1;
-                    Calendar calendar = new GregorianCalendar();
-                    // for a "0" year file, create 365 entries
-                    // otherwise create actual number of days in the year entries
-                    if (book.getValidYear() != 0) {
-                        calendar.set(Calendar.YEAR, book.getValidYear());
-                        numberOfEntries = calendar.getActualMaximum(Calendar.DAY_OF_YEAR);
-                    }
-
-                    Path file;
-                    Page page = new Page();
-                    page.setHeading("");
-                    page.setText("");
-                    String blankPage = MapperFactory.getObjectMapper().writeValueAsString(page);
-                    while (day <= numberOfEntries) {
-                        file = Paths.get(String.valueOf(directory), day + ".json");
-                        Files.writeString(file, blankPage, StandardCharsets.UTF_8);
-                        day++;
-                    }
+                    // days without a page file are blank, so pages are only written as they are edited
 
                     // write the book file
-                    file = Paths.get(String.valueOf(directory), "book.json");
-                    Files.writeString(file, MapperFactory.getObjectMapper().writeValueAsString(book), StandardCharsets.UTF_8);
+                    Path file = Paths.get(String.valueOf(directory), "book.json");
+                    Files.writeString(file, MapperFactory.getBookWriter().writeValueAsString(book), StandardCharsets.UTF_8);
 
                     // write the cover file
                     Path coverFile = Paths.get(String.valueOf(directory), "cover.png");
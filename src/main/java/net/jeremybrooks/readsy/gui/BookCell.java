@@ -21,39 +21,63 @@
 
 package net.jeremybrooks.readsy.gui;
 
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
+import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
-import net.jeremybrooks.readsy.controllers.BookCellController;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import net.jeremybrooks.readsy.CoverCache;
 import net.jeremybrooks.readsy.model.Book;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import net.jeremybrooks.readsy.model.BookStatusSummary;
 
-import java.io.IOException;
+import java.nio.file.Paths;
 
+/**
+ * A book in the library list: the cover, with the title, author and reading status beside it.
+ * <p>
+ * The nodes are built in code once per cell and reused for every book the cell shows,
+ * so creating cells and scrolling the list does no FXML parsing or reflection.
+ * </p>
+ */
 public class BookCell extends ListCell<Book> {
-    private final Parent root;
-    private final BookCellController controller;
+    private static final double CELL_HEIGHT = 100;
 
-    private static final Logger logger = LogManager.getLogger();
+    private final CoverCache coverCache;
+    private final HBox root;
+    private final ImageView coverImage = new ImageView();
+    private final Label title = new Label();
+    private final Label author = new Label();
+    private final Label status = new Label();
 
-    public BookCell() {
-        try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("BookCell.fxml"));
-            root = loader.load();
-            controller = loader.getController() ;
-        } catch (IOException e) {
-            logger.error("Error loading BookCell.fxml", e);
-            throw new RuntimeException(e);
-        }
+    public BookCell(CoverCache coverCache) {
+        this.coverCache = coverCache;
+        coverImage.setFitWidth(CELL_HEIGHT);
+        coverImage.setFitHeight(CELL_HEIGHT);
+        coverImage.setPreserveRatio(true);
+        title.setMaxWidth(Double.MAX_VALUE);
+        author.setMaxWidth(Double.MAX_VALUE);
+        root = new HBox(coverImage, new VBox(title, author, status));
+        root.setPrefHeight(CELL_HEIGHT);
     }
+
     @Override
     protected void updateItem(Book item, boolean empty) {
         super.updateItem(item, empty);
         if (empty || item == null) {
+            coverImage.setImage(null);
             setGraphic(null);
         } else {
-            controller.setBook(item);
+            title.setText(item.getTitle());
+            author.setText(item.getAuthor());
+            BookStatusSummary summary = item.getStatusSummary();
+            if (!summary.started()) {
+                status.setText("Reading start date is " + item.getReadingStartDate());
+            } else if (summary.valid()) {
+                status.setText("Unread: " + summary.unreadCount());
+            } else {
+                status.setText("Valid for the year " + item.getValidYear());
+            }
+            coverImage.setImage(coverCache.getCover(Paths.get(item.getBookPath()).getParent()));
             setGraphic(root);
         }
     }
@@ -25,6 +25,10 @@ import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.stage.Stage;
 import net.jeremybrooks.readsy.ActiveState;
+import net.jeremybrooks.readsy.CoverCache;
+import net.jeremybrooks.readsy.LibraryIndex;
+import net.jeremybrooks.readsy.PageCache;
+import net.jeremybrooks.readsy.SearchIndex;
 
 import java.nio.file.Path;
 
@@ -35,6 +39,10 @@ public class AppModel {
     private Stage stage;
     private Path editorBookDirectory;
     private Book book;
+    private LibraryIndex libraryIndex;
+    private final PageCache pageCache = new PageCache();
+    private final CoverCache coverCache = new CoverCache(100, 100);
+    private final SearchIndex searchIndex = new SearchIndex();
 
     public String getVersion() {
         return version == null ? "unknown" : version;
@@ -85,4 +93,24 @@ public class AppModel {
     public void setBook(Book book) {
         this.book = book;
     }
+
+    public LibraryIndex getLibraryIndex() {
+        return libraryIndex;
+    }
+
+    public void setLibraryIndex(LibraryIndex libraryIndex) {
+        this.libraryIndex = libraryIndex;
+    }
+
+    public PageCache getPageCache() {
+        return pageCache;
+    }
+
+    public CoverCache getCoverCache() {
+        return coverCache;
+    }
+
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
 }
@@ -24,6 +24,8 @@ package net.jeremybrooks.readsy.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 
+import net.jeremybrooks.readsy.Formatters;
+
 import java.time.LocalDate;
 
 @JsonPropertyOrder({"shortTitle", "title", "author", "version", "validYear", "statusFlags", "readingStartDate", "readingEndDate"})
@@ -45,6 +47,15 @@ public class Book {
     @JsonIgnore
     private LocalDate pageDate = LocalDate.now();
 
+    @JsonIgnore
+    private BookStatusSummary statusSummary;
+
+    /* parsed reading dates, set from the strings the first time they are needed */
+    @JsonIgnore
+    private LocalDate readingStart;
+    @JsonIgnore
+    private LocalDate readingEnd;
+
     public LocalDate getPageDate() {
         return pageDate;
     }
@@ -68,6 +79,36 @@ public class Book {
 
     public void setReadingStartDate(String readingStartDate) {
         this.readingStartDate = readingStartDate;
+        this.readingStart = null;
+        this.statusSummary = null;
+    }
+
+    /**
+     * Get the reading start date.
+     *
+     * @return the reading start date, or null if it is not set.
+     */
+    public LocalDate getReadingStart() {
+        if (readingStart == null && readingStartDate != null) {
+            readingStart = LocalDate.parse(readingStartDate, Formatters.shortISOFormatter);
+        }
+        return readingStart;
+    }
+
+    public void setReadingStart(LocalDate readingStart) {
+        setReadingStartDate(readingStart == null ? null : Formatters.shortISOFormatter.format(readingStart));
+        this.readingStart = readingStart;
+    }
+
+    /**
+     * Get the reading start date as a day count from the epoch.
+     *
+     * @return epoch day of the reading start date.
+     * @see LocalDate#toEpochDay()
+     */
+    @JsonIgnore
+    public long getReadingStartEpochDay() {
+        return getReadingStart().toEpochDay();
     }
 
     public String getReadingEndDate() {
@@ -76,6 +117,35 @@ public class Book {
 
     public void setReadingEndDate(String readingEndDate) {
         this.readingEndDate = readingEndDate;
+        this.readingEnd = null;
+    }
+
+    /**
+     * Get the reading end date.
+     *
+     * @return the reading end date, or null if it is not set.
+     */
+    public LocalDate getReadingEnd() {
+        if (readingEnd == null && readingEndDate != null) {
+            readingEnd = LocalDate.parse(readingEndDate, Formatters.shortISOFormatter);
+        }
+        return readingEnd;
+    }
+
+    public void setReadingEnd(LocalDate readingEnd) {
+        setReadingEndDate(readingEnd == null ? null : Formatters.shortISOFormatter.format(readingEnd));
+        this.readingEnd = readingEnd;
+    }
+
+    /**
+     * Get the reading end date as a day count from the epoch.
+     *
+     * @return epoch day of the reading end date.
+     * @see LocalDate#toEpochDay()
+     */
+    @JsonIgnore
+    public long getReadingEndEpochDay() {
+        return getReadingEnd().toEpochDay();
     }
 
     public String getShortTitle() {
@@ -102,6 +172,7 @@ public class Book {
 
     public void setValidYear(int validYear) {
         this.validYear = validYear;
+        this.statusSummary = null;
     }
 
     public String getTitle() {
@@ -118,6 +189,24 @@ public class Book {
 
     public void setStatusFlags(String statusFlags) {
         this.statusFlags = statusFlags;
+        this.statusSummary = null;
+    }
+
+    /**
+     * Get the reading status of this book for today.
+     * The status is computed again when the status flags, reading start date or
+     * valid year change, and when the date changes.
+     *
+     * @return status summary.
+     */
+    public BookStatusSummary getStatusSummary() {
+        LocalDate today = LocalDate.now();
+        BookStatusSummary summary = statusSummary;
+        if (summary == null || !summary.date().equals(today)) {
+            summary = BookStatusSummary.of(this, today);
+            statusSummary = summary;
+        }
+        return summary;
     }
 
     public String getVersion() {
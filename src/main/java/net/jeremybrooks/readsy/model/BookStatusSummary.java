@@ -0,0 +1,59 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.model;
+
+import net.jeremybrooks.readsy.BitHelper;
+
+import java.time.LocalDate;
+
+/**
+ * Reading status of a book as of a given day.
+ * <p>
+ * This is derived from the book's status flags, reading start date and valid year,
+ * so the library list can show it without parsing dates or status flags.
+ * </p>
+ *
+ * @param date        the day this summary was computed for.
+ * @param started     true if the reading start date is on or before the day.
+ * @param valid       true if the book is valid in the year of the day.
+ * @param unreadCount number of unread pages from the reading start date through the day.
+ */
+public record BookStatusSummary(LocalDate date, boolean started, boolean valid, int unreadCount) {
+
+    /**
+     * Compute the status of a book.
+     *
+     * @param book the book.
+     * @param date the day to compute the status for.
+     * @return status summary.
+     */
+    public static BookStatusSummary of(Book book, LocalDate date) {
+        LocalDate start = book.getReadingStart();
+        boolean started = !start.isAfter(date);
+        boolean valid = book.getValidYear() == 0 || book.getValidYear() == date.getYear();
+        int unreadCount = 0;
+        if (started && valid) {
+            unreadCount = new BitHelper(book.getStatusFlags()).getUnreadItemCount(start, date);
+        }
+        return new BookStatusSummary(date, started, valid, unreadCount);
+    }
+}
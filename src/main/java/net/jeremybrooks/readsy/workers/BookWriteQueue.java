@@ -0,0 +1,133 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.workers;
+
+import net.jeremybrooks.readsy.BookLocks;
+import net.jeremybrooks.readsy.BookUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
+
+/**
+ * Write files in the background, a short time after they are changed.
+ * <p>
+ *     Saving the same file again before it has been written replaces the pending
+ *     content, so a burst of changes results in a single write. Files are written
+ *     atomically, and anything still pending is written when the queue is closed.
+ *     Files saved after the queue has been closed are written straight away, on the
+ *     caller's thread.
+ * </p>
+ */
+public class BookWriteQueue implements Closeable {
+    private static final Logger logger = LogManager.getLogger();
+
+    private final long delayMillis;
+    private final BiConsumer<Path, Exception> listener;
+    private final Map<Path, byte[]> pending = new LinkedHashMap<>();
+    private final Object writeLock = new Object();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> Thread.ofPlatform().name("readsy-book-writer").daemon().unstarted(runnable));
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * Create a new write queue.
+     *
+     * @param delayMillis how long to wait after a change before writing it.
+     * @param listener    called on the writer thread after each file is written. The
+     *                    exception is null if the write succeeded.
+     */
+    public BookWriteQueue(long delayMillis, BiConsumer<Path, Exception> listener) {
+        this.delayMillis = delayMillis;
+        this.listener = listener;
+    }
+
+    /**
+     * Queue content to be written to a file.
+     *
+     * @param file    the file to write.
+     * @param content the new content of the file.
+     */
+    public void save(Path file, byte[] content) {
+        boolean closed;
+        synchronized (this) {
+            pending.put(file, content);
+            closed = executor.isShutdown();
+            if (scheduledFlush == null && !closed) {
+                scheduledFlush = executor.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (closed) {
+            // nothing will write the file later, so write it now
+            flush();
+        }
+    }
+
+    /**
+     * Write everything that is pending now.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            Map<Path, byte[]> batch;
+            synchronized (this) {
+                batch = new LinkedHashMap<>(pending);
+                pending.clear();
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+            }
+            batch.forEach((file, content) -> {
+                Lock lock = BookLocks.forBook(file.getParent());
+                lock.lock();
+                try {
+                    BookUtils.writeAtomically(file, content);
+                    logger.debug("Wrote {}", file);
+                    listener.accept(file, null);
+                } catch (Exception e) {
+                    logger.error("Error writing {}", file, e);
+                    listener.accept(file, e);
+                } finally {
+                    lock.unlock();
+                }
+            });
+        }
+    }
+
+    /**
+     * Write anything that is pending and stop the writer thread.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        flush();
+    }
+}
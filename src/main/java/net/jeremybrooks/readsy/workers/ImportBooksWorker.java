@@ -0,0 +1,189 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.workers;
+
+import javafx.concurrent.Task;
+import net.jeremybrooks.readsy.BookImporter;
+import net.jeremybrooks.readsy.model.Book;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Import a batch of .readsy files into the library.
+ * <p>
+ * Files are imported on a small pool of threads. Books whose title or short title
+ * is already in the library, or earlier in the batch, are skipped, as are books whose
+ * directory name is already taken in the library. The library is not refreshed here;
+ * callers should refresh once when the task has finished.
+ * </p>
+ */
+public class ImportBooksWorker extends Task<List<ImportBooksWorker.Result>> {
+    private static final Logger logger = LogManager.getLogger();
+
+    /** Maximum number of files imported at the same time. */
+    public static final int MAX_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    public enum Status {IMPORTED, DUPLICATE, FAILED}
+
+    /**
+     * Outcome of importing one file.
+     *
+     * @param archive       the file.
+     * @param title         title of the book, or null if book.json could not be read.
+     * @param status        what happened.
+     * @param message       description of the outcome.
+     * @param bookDirectory the new book directory, or null if the book was not imported.
+     */
+    public record Result(Path archive, String title, Status status, String message, Path bookDirectory) {
+    }
+
+    private final Path libraryDirectory;
+    private final List<Path> archives;
+    private final Set<String> knownTitles = new HashSet<>();
+
+    /**
+     * Create a task to import books.
+     *
+     * @param libraryDirectory the directory containing all books.
+     * @param archives         the .readsy files to import.
+     * @param existingBooks    books already in the library.
+     */
+    public ImportBooksWorker(Path libraryDirectory, List<Path> archives, Collection<Book> existingBooks) {
+        this.libraryDirectory = libraryDirectory;
+        this.archives = List.copyOf(archives);
+        for (Book book : existingBooks) {
+            addTitles(book);
+        }
+    }
+
+    @Override
+    protected List<Result> call() throws Exception {
+        int total = archives.size();
+        updateProgress(0, total);
+        return importBooks(done -> {
+            updateProgress(done, total);
+            updateMessage(String.format("Imported %d of %d", done, total));
+        });
+    }
+
+    /**
+     * Import the books.
+     *
+     * @param progress called with the number of files finished after each file.
+     * @return result for each file, in the order the files were given.
+     * @throws Exception if the import was interrupted.
+     */
+    public List<Result> importBooks(IntConsumer progress) throws Exception {
+        AtomicInteger done = new AtomicInteger();
+        List<Result> results = new ArrayList<>();
+        ExecutorService importers = Executors.newFixedThreadPool(MAX_THREADS,
+                runnable -> Thread.ofPlatform().name("readsy-import").daemon().unstarted(runnable));
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Path archive : archives) {
+                futures.add(importers.submit(() -> {
+                    Result result = importBook(archive);
+                    progress.accept(done.incrementAndGet());
+                    return result;
+                }));
+            }
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+        } finally {
+            importers.shutdownNow();
+        }
+        return results;
+    }
+
+    private Result importBook(Path archive) {
+        if (isCancelled()) {
+            return new Result(archive, null, Status.FAILED, "Cancelled", null);
+        }
+        try (BookImporter importer = BookImporter.open(archive)) {
+            Book book = importer.getBook();
+            if (!claimTitles(book)) {
+                return new Result(archive, book.getTitle(), Status.DUPLICATE,
+                        "Already in your library", null);
+            }
+            try {
+                BookImporter.setReadingDates(book, LocalDate.now());
+                Path bookDirectory = importer.extractTo(libraryDirectory);
+                return new Result(archive, book.getTitle(), Status.IMPORTED, "Imported", bookDirectory);
+            } catch (FileAlreadyExistsException e) {
+                releaseTitles(book);
+                return new Result(archive, book.getTitle(), Status.DUPLICATE,
+                        String.format("There is already a book named \"%s\" in your library",
+                                importer.getDirectoryName()), null);
+            } catch (Exception e) {
+                // the book was not added, so the titles are free for another file
+                releaseTitles(book);
+                throw e;
+            }
+        } catch (Exception e) {
+            logger.error("Error while adding book {}", archive, e);
+            return new Result(archive, null, Status.FAILED, String.valueOf(e.getMessage()), null);
+        }
+    }
+
+    /*
+     * Record the titles of a book, unless a book with either title is already known.
+     */
+    private synchronized boolean claimTitles(Book book) {
+        if (knownTitles.contains(book.getTitle()) ||
+                (book.getShortTitle() != null && knownTitles.contains(book.getShortTitle()))) {
+            return false;
+        }
+        addTitles(book);
+        return true;
+    }
+
+    private synchronized void releaseTitles(Book book) {
+        knownTitles.remove(book.getTitle());
+        if (book.getShortTitle() != null) {
+            knownTitles.remove(book.getShortTitle());
+        }
+    }
+
+    private void addTitles(Book book) {
+        if (book.getTitle() != null) {
+            knownTitles.add(book.getTitle());
+        }
+        if (book.getShortTitle() != null) {
+            knownTitles.add(book.getShortTitle());
+        }
+    }
+}
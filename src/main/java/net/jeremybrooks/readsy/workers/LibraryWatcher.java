@@ -0,0 +1,245 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.workers;
+
+import net.jeremybrooks.readsy.CoverCache;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Watch the library directory for books being added, removed, or changed.
+ * <p>
+ *     The library directory and every directory below it are watched, except for the
+ *     directories inside a book, so books can be grouped in folders. Events are
+ *     collected until the file system has been quiet for a short time, or for at most
+ *     {@value #MAX_BATCH_MILLIS} ms while changes keep coming, then the set of changed
+ *     book directories is passed to the listener. If events were lost, the listener is
+ *     passed the library directory itself, meaning everything should be checked.
+ * </p>
+ * <p>
+ *     Directories being added, removed or renamed are reported, as are changes to a
+ *     book.json or cover image. Changes to the other files readsy keeps in a book, such as
+ *     the search index, packed pages and temporary files, are ignored and do not hold back
+ *     the batch. A book.json that still has the modified time the library already knows
+ *     about, for example because readsy wrote it, is ignored as well.
+ * </p>
+ * <p>
+ *     The listener is called on the watcher thread.
+ * </p>
+ */
+public class LibraryWatcher implements Runnable, Closeable {
+    private static final Logger logger = LogManager.getLogger();
+    private static final long SETTLE_MILLIS = 250;
+    private static final long MAX_BATCH_MILLIS = 2000;
+
+    private final Path libraryDirectory;
+    private final Consumer<Set<Path>> listener;
+    private final Predicate<Path> isCurrent;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+
+    /**
+     * Create a watcher for a library directory.
+     *
+     * @param libraryDirectory the directory containing the book directories.
+     * @param listener         called with the book directories that changed.
+     * @throws IOException if the directory cannot be watched.
+     */
+    public LibraryWatcher(Path libraryDirectory, Consumer<Set<Path>> listener) throws IOException {
+        this(libraryDirectory, listener, bookDirectory -> false);
+    }
+
+    /**
+     * Create a watcher for a library directory.
+     *
+     * @param libraryDirectory the directory containing the book directories.
+     * @param listener         called with the book directories that changed.
+     * @param isCurrent        returns true if the book.json in a book directory is the one
+     *                         already loaded, so a change to it can be ignored.
+     * @throws IOException if the directory cannot be watched.
+     */
+    public LibraryWatcher(Path libraryDirectory, Consumer<Set<Path>> listener, Predicate<Path> isCurrent)
+            throws IOException {
+        this.libraryDirectory = libraryDirectory;
+        this.listener = listener;
+        this.isCurrent = isCurrent;
+        this.watchService = libraryDirectory.getFileSystem().newWatchService();
+        registerTree(libraryDirectory, new HashSet<>());
+    }
+
+    /**
+     * Start watching in a background thread.
+     */
+    public void start() {
+        Thread.ofPlatform().name("readsy-library-watcher").daemon().start(this);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                Set<Path> changed = new HashSet<>();
+                Set<Path> bookFileChanged = new HashSet<>();
+                if (!processEvents(watchService.take(), changed, bookFileChanged)) {
+                    continue;
+                }
+                long now = System.nanoTime();
+                long deadline = now + TimeUnit.MILLISECONDS.toNanos(MAX_BATCH_MILLIS);
+                long quietAt = now + TimeUnit.MILLISECONDS.toNanos(SETTLE_MILLIS);
+                long wait;
+                while ((wait = Math.min(quietAt, deadline) - System.nanoTime()) > 0) {
+                    WatchKey key = watchService.poll(wait, TimeUnit.NANOSECONDS);
+                    if (key != null && processEvents(key, changed, bookFileChanged)) {
+                        quietAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SETTLE_MILLIS);
+                    }
+                }
+                bookFileChanged.removeIf(isCurrent);
+                changed.addAll(bookFileChanged);
+                if (!changed.isEmpty()) {
+                    logger.debug("Book directories changed: {}", changed);
+                    listener.accept(changed);
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            logger.debug("Stopped watching {}", libraryDirectory);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("Error closing watch service for {}", libraryDirectory, e);
+        }
+    }
+
+    /*
+     * Record the book directories changed by the events of a key.
+     * Returns true if any of the events was of interest.
+     */
+    private boolean processEvents(WatchKey key, Set<Path> changed, Set<Path> bookFileChanged) {
+        Path dir = keys.get(key);
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                changed.add(libraryDirectory);
+                relevant = true;
+                continue;
+            }
+            Path name = (Path) event.context();
+            if (dir == null) {
+                continue;
+            }
+            Path child = dir.resolve(name);
+            if (event.kind() == ENTRY_DELETE ? keys.containsValue(child)
+                    : event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                // a book directory or a folder of books was added, removed, or renamed
+                if (event.kind() == ENTRY_CREATE) {
+                    try {
+                        registerTree(child, changed);
+                    } catch (IOException e) {
+                        logger.warn("Could not watch {}", child, e);
+                    }
+                } else {
+                    // a renamed directory keeps its watch, which would report the old path
+                    keys.entrySet().removeIf(entry -> {
+                        if (entry.getValue().startsWith(child)) {
+                            changed.add(entry.getValue());
+                            entry.getKey().cancel();
+                            return true;
+                        }
+                        return false;
+                    });
+                }
+                changed.add(child);
+                relevant = true;
+            } else if (dir.equals(libraryDirectory)) {
+                // a file next to the books, not a book
+                continue;
+            } else if (name.toString().equals("book.json")) {
+                bookFileChanged.add(dir);
+                relevant = true;
+            } else if (name.toString().equals(CoverCache.COVER_FILE_NAME)) {
+                changed.add(dir);
+                relevant = true;
+            }
+        }
+        if (!key.reset()) {
+            keys.remove(key);
+            if (dir != null && !dir.equals(libraryDirectory)) {
+                changed.add(dir);
+                relevant = true;
+            }
+        }
+        return relevant;
+    }
+
+    /*
+     * Watch a directory and the directories below it, except for the directories inside
+     * a book. Book directories that are found below the first one are added to found.
+     */
+    private void registerTree(Path start, Set<Path> found) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                keys.put(dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), dir);
+                if (!dir.equals(libraryDirectory) && Files.isRegularFile(dir.resolve("book.json"))) {
+                    if (!dir.equals(start)) {
+                        found.add(dir);
+                    }
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy.workers;
+
+import javafx.concurrent.Task;
+import net.jeremybrooks.readsy.BookLocks;
+import net.jeremybrooks.readsy.BookPackager;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Write a book being edited to a .readsy file in the background.
+ * <p>
+ * A .zip file with the same content is written next to the .readsy file, from the same pass over the book.
+ * </p>
+ */
+public class PackageBookWorker extends Task<Path> {
+    private final Path bookDirectory;
+    private final String shortTitle;
+
+    /**
+     * Create a task to package a book.
+     *
+     * @param bookDirectory the directory containing the book.
+     * @param shortTitle    short title of the book, used to name the files.
+     */
+    public PackageBookWorker(Path bookDirectory, String shortTitle) {
+        this.bookDirectory = bookDirectory;
+        this.shortTitle = shortTitle;
+    }
+
+    @Override
+    protected Path call() throws Exception {
+        Path parent = bookDirectory.toAbsolutePath().getParent();
+        Path readsyFile = parent.resolve(shortTitle + ".readsy");
+        Path zipFile = parent.resolve(shortTitle + ".zip");
+        Lock lock = BookLocks.forBook(bookDirectory);
+        lock.lock();
+        try {
+            BookPackager.pack(bookDirectory, shortTitle, List.of(readsyFile, zipFile), (done, total) -> {
+                updateProgress(done, total);
+                updateMessage(String.format("Packaged %d of %d files", done, total));
+            });
+        } finally {
+            lock.unlock();
+        }
+        return readsyFile;
+    }
+}
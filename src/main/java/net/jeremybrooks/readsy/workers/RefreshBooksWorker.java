@@ -21,65 +21,190 @@
 
 package net.jeremybrooks.readsy.workers;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import javafx.collections.ObservableList;
+import javafx.application.Platform;
+import net.jeremybrooks.readsy.LibraryIndex;
 import net.jeremybrooks.readsy.MapperFactory;
-import net.jeremybrooks.readsy.model.AppModel;
 import net.jeremybrooks.readsy.model.Book;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.Stream;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Load books into the library index.
+ * <p>
+ *     Only the book directories passed to the worker are loaded. If the library directory
+ *     itself is passed, every book directory in the library is checked, and books that
+ *     no longer exist are removed. A book directory is any directory below the library,
+ *     at any depth, that holds a book.json file. A book.json file is only parsed if it has changed
+ *     since it was last loaded.
+ * </p>
+ * <p>
+ *     The worker should be run on a background thread. Book files are parsed in parallel
+ *     on virtual threads, and the results are applied to the index in batches on the
+ *     JavaFX application thread.
+ * </p>
+ */
 public class RefreshBooksWorker implements Runnable {
 
     private final static Logger logger = LogManager.getLogger();
-    private final ObservableList<Book> list;
-    private final AppModel appModel;
+    private static final int BATCH_SIZE = 50;
+    private final LibraryIndex libraryIndex;
+    private final Collection<Path> bookDirectories;
+    private final Executor fxExecutor;
+
+    /**
+     * Create a worker that will load books from the given directories.
+     *
+     * @param libraryIndex    the index to update.
+     * @param bookDirectories directories that have changed.
+     */
+    public RefreshBooksWorker(LibraryIndex libraryIndex, Collection<Path> bookDirectories) {
+        this(libraryIndex, bookDirectories, Platform::runLater);
+    }
 
-    public RefreshBooksWorker(ObservableList<Book> list, AppModel appModel) {
-        this.list = list;
-        this.appModel = appModel;
+    /**
+     * Create a worker that will load books from the given directories.
+     *
+     * @param libraryIndex    the index to update.
+     * @param bookDirectories directories that have changed.
+     * @param fxExecutor      executor used to apply changes to the index.
+     */
+    public RefreshBooksWorker(LibraryIndex libraryIndex, Collection<Path> bookDirectories, Executor fxExecutor) {
+        this.libraryIndex = libraryIndex;
+        this.bookDirectories = bookDirectories;
+        this.fxExecutor = fxExecutor;
     }
 
     @Override
     public void run() {
-        Map<String, Book> existingBookMap = new HashMap<>();
-        list.forEach(book -> existingBookMap.put(book.getShortTitle(), book));
+        Collection<Path> directories = bookDirectories;
+        boolean fullScan = directories.contains(libraryIndex.getBookDirectory());
+        if (fullScan) {
+            try {
+                directories = listBookDirectories(libraryIndex.getBookDirectory());
+            } catch (IOException e) {
+                // without the list, books that are missing cannot be told from books that were not seen
+                logger.error("Error while searching for books. The library has not been changed.", e);
+                return;
+            }
+        }
+        Set<Path> found = new HashSet<>();
+        List<Result> batch = new ArrayList<>();
+        try (ExecutorService parsers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Path dir : directories) {
+                futures.add(parsers.submit(() -> loadBook(dir)));
+            }
+            for (Future<Result> future : futures) {
+                Result result = future.get();
+                if (result.exists()) {
+                    found.add(result.directory());
+                }
+                if (result.book() != null || !result.exists()) {
+                    batch.add(result);
+                }
+                if (batch.size() == BATCH_SIZE) {
+                    publish(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error while loading books.", e);
+            return;
+        }
+        publish(batch);
+        if (fullScan) {
+            fxExecutor.execute(() -> libraryIndex.retainAll(found));
+        }
+    }
 
-        ObjectMapper mapper = MapperFactory.getObjectMapper();
+    private void publish(List<Result> batch) {
+        if (!batch.isEmpty()) {
+            fxExecutor.execute(() -> {
+                for (Result result : batch) {
+                    if (result.exists()) {
+                        libraryIndex.put(result.directory(), result.book(), result.modifiedTime());
+                    } else {
+                        libraryIndex.remove(result.directory());
+                    }
+                }
+            });
+        }
+    }
+
+    /*
+     * Load the book in a directory.
+     * The result has no book if the book has not changed, or could not be read.
+     */
+    private Result loadBook(Path dir) {
+        Path path = dir.resolve("book.json");
+        FileTime modifiedTime;
         try {
-            try (Stream<Path> pathStream =
-                         Files.find(Paths.get(appModel.getConfiguration().getBookDirectory()),
-                                 Integer.MAX_VALUE,
-                                 (filePath, fileAttr) -> fileAttr.isRegularFile())) {
-                pathStream.sorted()
-                        .filter(path -> path.endsWith("book.json"))
-                        .forEach(path -> {
-                            logger.info("Found book at {}", path);
-                            try (InputStream in = Files.newInputStream(path)) {
-                                Book b = mapper.readValue(in, Book.class);
-                                b.setBookPath(path.toString());
-                                // if the newly loaded book was already in the book list,
-                                // preserve the page date and remove the old one from the list
-                                if (existingBookMap.containsKey(b.getShortTitle())) {
-                                    b.setPageDate(existingBookMap.get(b.getShortTitle()).getPageDate());
-                                }
-                                list.add(b);
-                            } catch (Exception e) {
-                                logger.error("Error reading book from {}", path, e);
-                            }
-                        });
-            }
+            modifiedTime = Files.getLastModifiedTime(path);
+        } catch (NoSuchFileException e) {
+            return new Result(dir, null, null, false);
+        } catch (Exception e) {
+            logger.error("Error reading book from {}", path, e);
+            return new Result(dir, null, null, libraryIndex.getBook(dir) != null);
+        }
+        if (modifiedTime.equals(libraryIndex.getModifiedTime(dir))) {
+            return new Result(dir, null, modifiedTime, true);
+        }
+        logger.debug("Found book at {}", path);
+        try (InputStream in = Files.newInputStream(path)) {
+            Book b = MapperFactory.getBookReader().readValue(in);
+            b.setBookPath(path.toString());
+            return new Result(dir, b, modifiedTime, true);
         } catch (Exception e) {
-            logger.error("Error while searching for books.", e);
+            logger.error("Error reading book from {}", path, e);
+            return new Result(dir, null, null, libraryIndex.getBook(dir) != null);
         }
-        list.removeAll(existingBookMap.values());
+    }
+
+    /*
+     * Find every directory below the library that holds a book.json, at any depth, so
+     * books can be grouped in folders. The files of a book are not searched, so only
+     * directories are listed, and the directories inside a book are not searched for books.
+     */
+    private static List<Path> listBookDirectories(Path libraryDirectory) throws IOException {
+        List<Path> directories = new ArrayList<>();
+        Files.walkFileTree(libraryDirectory, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(libraryDirectory) && Files.isRegularFile(dir.resolve("book.json"))) {
+                    directories.add(dir);
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return directories;
+    }
+
+    /* the outcome of loading one book directory */
+    private record Result(Path directory, Book book, FileTime modifiedTime, boolean exists) {
     }
 }
@@ -63,7 +63,7 @@ public class SaveConfigWorker {
             xs.submit(() -> {
                 Path configFile = Paths.get(Constants.READSY_CONFIG_FILE);
                 try (OutputStream out = Files.newOutputStream(configFile)) {
-                    MapperFactory.getObjectMapper().writeValue(out, configuration);
+                    MapperFactory.getConfigurationWriter().writeValue(out, configuration);
                 } catch (Exception e) {
                     logger.error("Error writing config file {}", configFile, e);
                 }
@@ -151,4 +151,62 @@ public class BitHelperTest {
     LocalDate currentDate = LocalDate.of(2017, Month.DECEMBER, 31);
     assertEquals(9, bitHelper.getUnreadItemCount(readingStartDate, currentDate));
   }
+
+  @Test
+  public void testUnreadItemCountRange() {
+    BitHelper bitHelper = new BitHelper(testNothingRead);
+    assertEquals(368, bitHelper.capacity());
+    assertEquals(366, bitHelper.getUnreadItemCount(1, 366));
+    for (int i = 60; i <= 200; i++) {
+      bitHelper.setRead(i, true);
+    }
+    assertEquals(366 - 141, bitHelper.getUnreadItemCount(1, 366));
+    assertEquals(0, bitHelper.getUnreadItemCount(60, 200));
+    assertEquals(0, bitHelper.getUnreadItemCount(64, 65));
+    assertEquals(1, bitHelper.getUnreadItemCount(59, 60));
+    assertEquals(1, bitHelper.getUnreadItemCount(200, 201));
+    assertEquals(0, bitHelper.getUnreadItemCount(10, 9));
+
+    // days past the end of the flags can not be read
+    assertEquals(3, bitHelper.getUnreadItemCount(368, 370));
+    assertEquals(5, bitHelper.getUnreadItemCount(
+        LocalDate.of(2020, 1, 1).plusDays(195),
+        LocalDate.of(2020, 1, 1).plusDays(199)));
+  }
+
+  @Test
+  public void testUnreadItemCountMatchesIsRead() {
+    BitHelper bitHelper = new BitHelper(testInit);
+    for (int first = 1; first < 370; first += 7) {
+      for (int last = first; last < 375; last += 13) {
+        int expected = 0;
+        for (int day = first; day <= last; day++) {
+          if (!bitHelper.isRead(day)) {
+            expected++;
+          }
+        }
+        assertEquals(expected, bitHelper.getUnreadItemCount(first, last));
+      }
+    }
+  }
+
+  @Test
+  public void testUnreadItemCountBeforeStart() {
+    BitHelper bitHelper = new BitHelper();
+    assertEquals(0, bitHelper.getUnreadItemCount(
+        LocalDate.of(2024, 2, 1),
+        LocalDate.of(2024, 1, 31)));
+  }
+
+  @Test
+  public void testSetReadAndClear() {
+    BitHelper bitHelper = new BitHelper(testInit);
+    for (int i = 1; i <= bitHelper.capacity(); i++) {
+      boolean read = bitHelper.isRead(i);
+      bitHelper.setRead(i, !read);
+      assertEquals(!read, bitHelper.isRead(i));
+      bitHelper.setRead(i, read);
+    }
+    assertEquals(testInit, bitHelper.toString());
+  }
 }
@@ -0,0 +1,129 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Book;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BookImporterTest {
+    private Path tempDirectory;
+    private Path libraryDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        tempDirectory = Files.createTempDirectory("readsy-import");
+        libraryDirectory = Files.createDirectory(tempDirectory.resolve("library"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    private Path archive(String name, String prefix, String bookJson) throws IOException {
+        Path archive = tempDirectory.resolve(name);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+            out.putNextEntry(new ZipEntry(prefix + "book.json"));
+            out.write(bookJson.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry(prefix + "cover.png"));
+            out.write(new byte[]{1, 2, 3});
+            out.closeEntry();
+            for (int day = 1; day <= 3; day++) {
+                out.putNextEntry(new ZipEntry(prefix + day + ".json"));
+                out.write(("{\"heading\":\"Day " + day + "\",\"text\":\"Text\"}").getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return archive;
+    }
+
+    @Test
+    public void testImport() throws Exception {
+        Path archive = archive("test.readsy", "wap/", "{\"title\":\"War and Peace\",\"validYear\":0}");
+        Path bookDirectory;
+        try (BookImporter importer = BookImporter.open(archive)) {
+            assertEquals("wap", importer.getDirectoryName());
+            assertEquals("War and Peace", importer.getBook().getTitle());
+            importer.getBook().setReadingStartDate("2025-01-01");
+            bookDirectory = importer.extractTo(libraryDirectory);
+        }
+        assertEquals(libraryDirectory.resolve("wap"), bookDirectory);
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(bookDirectory.resolve("cover.png")));
+        assertTrue(Files.exists(bookDirectory.resolve(PageStore.PACK_FILE_NAME)));
+        assertFalse(Files.exists(bookDirectory.resolve("1.json")));
+        assertEquals("Day 2", PageStore.open(bookDirectory).readPage(2).getHeading());
+
+        Book book = MapperFactory.getBookReader().readValue(bookDirectory.resolve("book.json").toFile());
+        assertEquals("2025-01-01", book.getReadingStartDate());
+    }
+
+    @Test
+    public void testImportFlatArchive() throws Exception {
+        Path archive = archive("flat.readsy", "", "{\"title\":\"Flat\"}");
+        try (BookImporter importer = BookImporter.open(archive)) {
+            assertEquals("flat", importer.getDirectoryName());
+            assertTrue(Files.exists(importer.extractTo(libraryDirectory).resolve("book.json")));
+        }
+    }
+
+    @Test
+    public void testInvalidBookIsNotExtracted() throws Exception {
+        Path archive = archive("bad.readsy", "bad/", "{\"author\":\"Nobody\"}");
+        try (BookImporter importer = BookImporter.open(archive)) {
+            fail("Opened archive without a title: " + importer.getBook());
+        } catch (IOException e) {
+            // expected
+        }
+        try (var files = Files.list(libraryDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testExistingDirectory() throws Exception {
+        Files.createDirectory(libraryDirectory.resolve("wap"));
+        Path archive = archive("test.readsy", "wap/", "{\"title\":\"War and Peace\"}");
+        try (BookImporter importer = BookImporter.open(archive)) {
+            importer.extractTo(libraryDirectory);
+            fail("Extracted over an existing book");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Page;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class BookPackagerTest {
+    private Path tempDirectory;
+    private Path bookDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        tempDirectory = Files.createTempDirectory("readsy-packager");
+        bookDirectory = Files.createDirectory(tempDirectory.resolve("book"));
+        Files.writeString(bookDirectory.resolve("book.json"), "{\"title\":\"Packed\"}");
+        Files.write(bookDirectory.resolve("cover.png"), new byte[]{9, 8, 7, 6});
+        for (int day = 1; day <= 20; day++) {
+            Files.writeString(bookDirectory.resolve(day + ".json"),
+                    "{\"heading\":\"Day " + day + "\",\"text\":\"" + "Lorem ipsum. ".repeat(50) + "\"}");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    @Test
+    public void testPack() throws Exception {
+        Path target = tempDirectory.resolve("packed.readsy");
+        List<Integer> progress = new ArrayList<>();
+        BookPackager.pack(bookDirectory, "packed", target, (done, total) -> {
+            assertEquals(367, total.intValue());
+            progress.add(done);
+        });
+        assertEquals(367, progress.size());
+        assertEquals(367, progress.getLast().intValue());
+
+        try (ZipFile zip = new ZipFile(target.toFile())) {
+            assertEquals(367, zip.size());
+            ZipEntry cover = zip.getEntry("packed/cover.png");
+            assertNotNull(cover);
+            assertEquals(ZipEntry.STORED, cover.getMethod());
+            assertArrayEquals(new byte[]{9, 8, 7, 6}, zip.getInputStream(cover).readAllBytes());
+
+            ZipEntry page = zip.getEntry("packed/5.json");
+            assertEquals(ZipEntry.DEFLATED, page.getMethod());
+            assertEquals(Files.readString(bookDirectory.resolve("5.json")),
+                    new String(zip.getInputStream(page).readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testPackedPagesAreWrittenAsPageFiles() throws Exception {
+        PageStore.pack(bookDirectory);
+        Files.writeString(bookDirectory.resolve("3.json"), "{\"heading\":\"Edited\",\"text\":\"Text\"}");
+        Files.writeString(bookDirectory.resolve(SearchIndex.INDEX_FILE_NAME), "index");
+        Path target = tempDirectory.resolve("packed.readsy");
+        BookPackager.pack(bookDirectory, "packed", target, (done, total) -> {
+        });
+
+        try (ZipFile zip = new ZipFile(target.toFile())) {
+            assertEquals(367, zip.size());
+            assertNull(zip.getEntry("packed/" + PageStore.PACK_FILE_NAME));
+            assertNull(zip.getEntry("packed/" + SearchIndex.INDEX_FILE_NAME));
+            Page page = MapperFactory.getPageReader().readValue(
+                    zip.getInputStream(zip.getEntry("packed/20.json")).readAllBytes());
+            assertEquals("Day 20", page.getHeading());
+            // a loose page file takes precedence over the packed page
+            page = MapperFactory.getPageReader().readValue(
+                    zip.getInputStream(zip.getEntry("packed/3.json")).readAllBytes());
+            assertEquals("Edited", page.getHeading());
+        }
+    }
+
+    @Test
+    public void testBlankPagesAreWritten() throws Exception {
+        Files.writeString(bookDirectory.resolve("book.json"), "{\"title\":\"Packed\",\"validYear\":2024}");
+        Files.delete(bookDirectory.resolve("7.json"));
+        Path target = tempDirectory.resolve("packed.readsy");
+        BookPackager.pack(bookDirectory, "packed", target, (done, total) -> {
+        });
+
+        try (ZipFile zip = new ZipFile(target.toFile())) {
+            // 2024 has 366 days
+            assertEquals(368, zip.size());
+            for (int day : new int[]{7, 21, 366}) {
+                Page page = MapperFactory.getPageReader().readValue(
+                        zip.getInputStream(zip.getEntry("packed/" + day + ".json")).readAllBytes());
+                assertEquals("", page.getHeading());
+                assertEquals("", page.getText());
+            }
+            assertNull(zip.getEntry("packed/367.json"));
+        }
+    }
+
+    @Test
+    public void testPackToSeveralFiles() throws Exception {
+        Path readsy = tempDirectory.resolve("packed.readsy");
+        Path zip = tempDirectory.resolve("packed.zip");
+        Files.writeString(zip, "old");
+        List<Integer> progress = new ArrayList<>();
+        BookPackager.pack(bookDirectory, "packed", List.of(readsy, zip), (done, total) -> progress.add(done));
+
+        // the book is read once, and both files get the same content
+        assertEquals(367, progress.size());
+        assertArrayEquals(Files.readAllBytes(readsy), Files.readAllBytes(zip));
+        try (ZipFile packed = new ZipFile(zip.toFile())) {
+            assertEquals(367, packed.size());
+            assertEquals(Files.readString(bookDirectory.resolve("20.json")),
+                    new String(packed.getInputStream(packed.getEntry("packed/20.json")).readAllBytes(),
+                            StandardCharsets.UTF_8));
+        }
+        try (Stream<Path> files = Files.list(tempDirectory)) {
+            assertEquals(0, files.filter(file -> file.toString().endsWith(".tmp")).count());
+        }
+    }
+
+    @Test
+    public void testImportPackedBook() throws Exception {
+        Path target = tempDirectory.resolve("packed.readsy");
+        BookPackager.pack(bookDirectory, "packed", target, (done, total) -> {
+        });
+        Path library = Files.createDirectory(tempDirectory.resolve("library"));
+        try (BookImporter importer = BookImporter.open(target)) {
+            assertEquals("Packed", importer.getBook().getTitle());
+            Path imported = importer.extractTo(library);
+            assertEquals("Day 20", PageStore.open(imported).readPage(20).getHeading());
+        }
+    }
+}
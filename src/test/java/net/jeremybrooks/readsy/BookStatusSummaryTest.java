@@ -0,0 +1,96 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Book;
+import net.jeremybrooks.readsy.model.BookStatusSummary;
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BookStatusSummaryTest {
+
+    private Book book(String startDate) {
+        Book book = new Book();
+        book.setValidYear(0);
+        book.setStatusFlags(Constants.NOTHING_READ);
+        book.setReadingStartDate(startDate);
+        return book;
+    }
+
+    @Test
+    public void testNotStarted() {
+        LocalDate today = LocalDate.of(2025, 3, 1);
+        BookStatusSummary summary = BookStatusSummary.of(book("2025-03-02"), today);
+        assertFalse(summary.started());
+        assertTrue(summary.valid());
+        assertEquals(0, summary.unreadCount());
+    }
+
+    @Test
+    public void testUnreadCount() {
+        Book book = book("2025-03-01");
+        BitHelper bitHelper = new BitHelper(book.getStatusFlags());
+        bitHelper.setRead(2, true);
+        book.setStatusFlags(bitHelper.toString());
+        BookStatusSummary summary = BookStatusSummary.of(book, LocalDate.of(2025, 3, 5));
+        assertTrue(summary.started());
+        assertEquals(4, summary.unreadCount());
+    }
+
+    @Test
+    public void testValidYearOfDate() {
+        Book book = book("2020-01-01");
+        book.setValidYear(2020);
+        BookStatusSummary summary = BookStatusSummary.of(book, LocalDate.of(2020, 1, 3));
+        assertTrue(summary.valid());
+        assertEquals(3, summary.unreadCount());
+
+        summary = BookStatusSummary.of(book, LocalDate.of(2021, 1, 3));
+        assertFalse(summary.valid());
+        assertEquals(0, summary.unreadCount());
+
+        book.setValidYear(0);
+        assertTrue(BookStatusSummary.of(book, LocalDate.of(2021, 1, 3)).valid());
+    }
+
+    @Test
+    public void testCachedUntilChanged() {
+        Book book = book(LocalDate.now().minusDays(2).toString());
+        BookStatusSummary summary = book.getStatusSummary();
+        assertEquals(3, summary.unreadCount());
+        assertSame(summary, book.getStatusSummary());
+
+        BitHelper bitHelper = new BitHelper(book.getStatusFlags());
+        bitHelper.setRead(1, true);
+        book.setStatusFlags(bitHelper.toString());
+        BookStatusSummary changed = book.getStatusSummary();
+        assertNotSame(summary, changed);
+        assertEquals(2, changed.unreadCount());
+    }
+}
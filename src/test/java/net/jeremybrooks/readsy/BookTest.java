@@ -25,7 +25,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import net.jeremybrooks.readsy.model.Book;
 import org.junit.Test;
 
+import java.time.LocalDate;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 public class BookTest {
     @Test
@@ -59,4 +62,23 @@ public class BookTest {
         assertEquals(readingStartDate, book.getReadingStartDate());
         assertEquals(readingEndDate, book.getReadingEndDate());
     }
+
+    @Test
+    public void testReadingDates() throws Exception {
+        Book book = new Book();
+        book.setReadingStart(LocalDate.of(2025, 2, 1));
+        book.setReadingEnd(LocalDate.of(2026, 1, 31));
+        assertEquals("2025-02-01", book.getReadingStartDate());
+        assertEquals(LocalDate.of(2025, 2, 1).toEpochDay(), book.getReadingStartEpochDay());
+
+        String json = MapperFactory.getBookWriter().writeValueAsString(book);
+        assertFalse(json.contains("EpochDay"));
+        assertFalse(json.contains("\"readingStart\""));
+        Book bookFromJson = MapperFactory.getBookReader().readValue(json);
+        assertEquals(LocalDate.of(2025, 2, 1), bookFromJson.getReadingStart());
+        assertEquals(LocalDate.of(2026, 1, 31), bookFromJson.getReadingEnd());
+
+        bookFromJson.setReadingStartDate("2025-03-01");
+        assertEquals(LocalDate.of(2025, 3, 1), bookFromJson.getReadingStart());
+    }
 }
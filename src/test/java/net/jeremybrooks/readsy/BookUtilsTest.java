@@ -21,9 +21,18 @@
 
 package net.jeremybrooks.readsy;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.time.LocalDate;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 
@@ -60,6 +69,12 @@ public class BookUtilsTest {
                 BookUtils.getDayOfReadingYear(
                         LocalDate.of(2025, 1, 5),
                         LocalDate.of(2026, 1, 4)));
+
+        // reading plan spanning more than one year boundary
+        assertEquals(368,
+                BookUtils.getDayOfReadingYear(
+                        LocalDate.of(2023, 12, 31),
+                        LocalDate.of(2025, 1, 1)));
     }
 
     @Test
@@ -85,4 +100,40 @@ public class BookUtilsTest {
         assertTrue(BookUtils.isPageDateInReadingRange(LocalDate.of(2020, 2, 29), startDate, endDate));
         assertFalse(BookUtils.isPageDateInReadingRange(LocalDate.of(2019, 5, 4), startDate, endDate));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testWriteAtomically() throws Exception {
+        Path dir = Files.createTempDirectory("readsy-test");
+        Path file = dir.resolve("book.json");
+        BookUtils.writeAtomically(file, "first".getBytes(StandardCharsets.UTF_8));
+        BookUtils.writeAtomically(file, "second".getBytes(StandardCharsets.UTF_8));
+        assertEquals("second", Files.readString(file));
+        // no temporary files are left behind
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+        Files.delete(file);
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testWriteAtomicallyKeepsPermissions() throws Exception {
+        Path dir = Files.createTempDirectory("readsy-test");
+        Path file = dir.resolve("book.json");
+        try {
+            BookUtils.writeAtomically(file, "first".getBytes(StandardCharsets.UTF_8));
+            Path plain = Files.createFile(dir.resolve("plain.json"));
+            if (Files.getFileStore(file).supportsFileAttributeView(PosixFileAttributeView.class)) {
+                // a new file gets the same permissions as any other new file
+                assertEquals(Files.getPosixFilePermissions(plain), Files.getPosixFilePermissions(file));
+
+                Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-rw-r--");
+                Files.setPosixFilePermissions(file, permissions);
+                BookUtils.writeAtomically(file, "second".getBytes(StandardCharsets.UTF_8));
+                assertEquals(permissions, Files.getPosixFilePermissions(file));
+            }
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.workers.BookWriteQueue;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class BookWriteQueueTest {
+    private Path dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("readsy-queue");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(dir.toFile());
+    }
+
+    @Test
+    public void testRepeatedSavesAreCoalesced() throws Exception {
+        List<Path> written = Collections.synchronizedList(new ArrayList<>());
+        Path file = dir.resolve("book.json");
+        try (BookWriteQueue queue = new BookWriteQueue(60_000, (path, e) -> written.add(path))) {
+            queue.save(file, bytes("one"));
+            queue.save(file, bytes("two"));
+            queue.save(file, bytes("three"));
+            assertFalse(Files.exists(file));
+            queue.flush();
+            assertEquals("three", Files.readString(file));
+            assertEquals(1, written.size());
+        }
+    }
+
+    @Test
+    public void testPendingWritesAreFlushedOnClose() throws Exception {
+        Path file = dir.resolve("book.json");
+        BookWriteQueue queue = new BookWriteQueue(60_000, (path, e) -> { });
+        queue.save(file, bytes("pending"));
+        queue.close();
+        assertEquals("pending", Files.readString(file));
+    }
+
+    @Test
+    public void testSaveAfterCloseWritesNow() throws Exception {
+        List<Path> written = Collections.synchronizedList(new ArrayList<>());
+        Path file = dir.resolve("book.json");
+        BookWriteQueue queue = new BookWriteQueue(60_000, (path, e) -> written.add(path));
+        queue.close();
+        queue.save(file, bytes("after close"));
+        assertEquals("after close", Files.readString(file));
+        assertEquals(List.of(file), written);
+
+        // closing again is harmless
+        queue.close();
+        assertEquals(1, written.size());
+    }
+
+    @Test
+    public void testWritesAfterDelay() throws Exception {
+        Path file = dir.resolve("book.json");
+        try (BookWriteQueue queue = new BookWriteQueue(10, (path, e) -> { })) {
+            queue.save(file, bytes("delayed"));
+            for (int i = 0; i < 100 && !Files.exists(file); i++) {
+                Thread.sleep(20);
+            }
+            assertEquals("delayed", Files.readString(file));
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
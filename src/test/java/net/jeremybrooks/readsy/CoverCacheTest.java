@@ -0,0 +1,141 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CoverCacheTest {
+    private Path libraryDirectory;
+    private Path withCover;
+    private Path withoutCover;
+    private final List<String> loaded = new ArrayList<>();
+    private CoverCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        libraryDirectory = Files.createTempDirectory("readsy-covers");
+        withCover = Files.createDirectory(libraryDirectory.resolve("with"));
+        withoutCover = Files.createDirectory(libraryDirectory.resolve("without"));
+        Files.write(withCover.resolve(CoverCache.COVER_FILE_NAME), new byte[]{1, 2, 3});
+        // images cannot be decoded without the JavaFX toolkit, so only record what is loaded
+        cache = new CoverCache(100, 100, CoverCache.DEFAULT_MAX_BYTES, url -> {
+            if (url.startsWith("file:")) {
+                loaded.add(url);
+            }
+            return null;
+        }, Runnable::run);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(libraryDirectory.toFile());
+    }
+
+    @Test
+    public void testCachedCoverIsNotCheckedAgain() throws Exception {
+        cache.getCover(withCover);
+        cache.getCover(withoutCover);
+        assertEquals(1, loaded.size());
+        assertEquals(2, cache.size());
+
+        // a cover that changes on disk is served from the cache until the library is refreshed
+        Files.delete(withCover.resolve(CoverCache.COVER_FILE_NAME));
+        cache.getCover(withCover);
+        assertEquals(1, loaded.size());
+    }
+
+    @Test
+    public void testValidateRemovesChangedCovers() throws Exception {
+        cache.getCover(withCover);
+        cache.getCover(withoutCover);
+        assertTrue(cache.validate(Set.of(withCover, withoutCover)).isEmpty());
+        assertEquals(2, cache.size());
+
+        Files.setLastModifiedTime(withCover.resolve(CoverCache.COVER_FILE_NAME), FileTime.fromMillis(1000));
+        assertEquals(Set.of(withCover), cache.validate(Set.of(withCover, withoutCover)));
+        assertEquals(1, cache.size());
+        cache.getCover(withCover);
+        assertEquals(2, loaded.size());
+    }
+
+    @Test
+    public void testValidateAllFindsNewAndRemovedCovers() throws Exception {
+        cache.getCover(withCover);
+        cache.getCover(withoutCover);
+        Files.delete(withCover.resolve(CoverCache.COVER_FILE_NAME));
+        Files.write(withoutCover.resolve(CoverCache.COVER_FILE_NAME), new byte[]{4, 5, 6});
+
+        assertEquals(Set.of(withCover, withoutCover), cache.validateAll());
+        assertEquals(0, cache.size());
+        cache.getCover(withoutCover);
+        assertEquals(withoutCover.resolve(CoverCache.COVER_FILE_NAME).toUri().toString(), loaded.getLast());
+    }
+
+
+    @Test
+    public void testCoversAreLookedUpInTheBackground() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<Path> found = new ArrayList<>();
+        cache = new CoverCache(100, 100, CoverCache.DEFAULT_MAX_BYTES, url -> {
+            if (url.startsWith("file:")) {
+                loaded.add(url);
+            }
+            return null;
+        }, tasks::add);
+        cache.setOnCoverLoaded(found::add);
+
+        cache.getCover(withCover);
+        cache.getCover(withCover);
+        cache.getCover(withoutCover);
+        assertEquals(2, tasks.size());
+        assertTrue(loaded.isEmpty());
+        // a cover that is still being looked up is not checked
+        assertTrue(cache.validateAll().isEmpty());
+
+        tasks.forEach(Runnable::run);
+        assertEquals(1, loaded.size());
+        assertEquals(List.of(withCover), found);
+    }
+
+    @Test
+    public void testInvalidatedLookupIsDropped() {
+        List<Runnable> tasks = new ArrayList<>();
+        cache = new CoverCache(100, 100, CoverCache.DEFAULT_MAX_BYTES, url -> null, tasks::add);
+        cache.getCover(withCover);
+        cache.invalidate(withCover);
+        tasks.forEach(Runnable::run);
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Book;
+import net.jeremybrooks.readsy.workers.ImportBooksWorker;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ImportBooksWorkerTest {
+    private Path tempDirectory;
+    private Path libraryDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        tempDirectory = Files.createTempDirectory("readsy-import");
+        libraryDirectory = Files.createDirectory(tempDirectory.resolve("library"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(tempDirectory.toFile());
+    }
+
+    private Path archive(String name, String title, String shortTitle) throws Exception {
+        return archive(tempDirectory, name, title, shortTitle);
+    }
+
+    private Path archive(Path folder, String name, String title, String shortTitle) throws Exception {
+        Path archive = folder.resolve(name + ".readsy");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(archive))) {
+            out.putNextEntry(new ZipEntry(name + "/book.json"));
+            out.write(String.format("{\"title\":\"%s\",\"shortTitle\":\"%s\"}", title, shortTitle)
+                    .getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry(name + "/1.json"));
+            out.write("{\"heading\":\"Day 1\",\"text\":\"Text\"}".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        return archive;
+    }
+
+    @Test
+    public void testImportBatch() throws Exception {
+        Book existing = new Book();
+        existing.setTitle("Existing");
+        existing.setShortTitle("existing");
+        List<Path> archives = List.of(
+                archive("one", "One", "one"),
+                archive("two", "Two", "two"),
+                archive("existing", "Existing Again", "existing"),
+                archive("again", "One", "again"),
+                tempDirectory.resolve("missing.readsy"));
+
+        ImportBooksWorker worker = new ImportBooksWorker(libraryDirectory, archives, List.of(existing));
+        AtomicInteger progress = new AtomicInteger();
+        List<ImportBooksWorker.Result> results = worker.importBooks(done -> progress.accumulateAndGet(done, Math::max));
+
+        assertEquals(5, progress.get());
+        assertEquals(5, results.size());
+        assertEquals(archives.get(0), results.get(0).archive());
+        assertEquals(ImportBooksWorker.Status.IMPORTED, results.get(1).status());
+        assertEquals(ImportBooksWorker.Status.DUPLICATE, results.get(2).status());
+        assertEquals(ImportBooksWorker.Status.FAILED, results.get(4).status());
+        assertEquals(libraryDirectory.resolve("two"), results.get(1).bookDirectory());
+        assertTrue(Files.exists(libraryDirectory.resolve("two").resolve("book.json")));
+
+        // the same title later in the batch, or earlier when run in parallel, is imported only once
+        long imported = results.stream()
+                .filter(result -> "One".equals(result.title()))
+                .filter(result -> result.status() == ImportBooksWorker.Status.IMPORTED)
+                .count();
+        assertEquals(1, imported);
+    }
+
+    @Test
+    public void testSameDirectoryNameIsDuplicate() throws Exception {
+        List<Path> archives = List.of(
+                archive(Files.createDirectory(tempDirectory.resolve("a")), "book", "Book A", "a"),
+                archive(Files.createDirectory(tempDirectory.resolve("b")), "book", "Book B", "b"));
+
+        List<ImportBooksWorker.Result> results =
+                new ImportBooksWorker(libraryDirectory, archives, List.of()).importBooks(done -> { });
+
+        List<ImportBooksWorker.Status> statuses = results.stream().map(ImportBooksWorker.Result::status).toList();
+        assertTrue(statuses.contains(ImportBooksWorker.Status.IMPORTED));
+        assertTrue(statuses.contains(ImportBooksWorker.Status.DUPLICATE));
+        ImportBooksWorker.Result duplicate = results.get(statuses.indexOf(ImportBooksWorker.Status.DUPLICATE));
+        assertTrue(duplicate.message().contains("\"book\""));
+        assertTrue(Files.exists(libraryDirectory.resolve("book").resolve("book.json")));
+    }
+
+    @Test
+    public void testTitlesAreReleasedWhenImportFails() throws Exception {
+        Path taken = Files.createDirectory(libraryDirectory.resolve("clash"));
+        ImportBooksWorker worker = new ImportBooksWorker(libraryDirectory,
+                List.of(archive("clash", "Clash", "clash")), List.of());
+
+        ImportBooksWorker.Result result = worker.importBooks(done -> { }).getFirst();
+        assertEquals(ImportBooksWorker.Status.DUPLICATE, result.status());
+        // the directory that was already there is left alone
+        assertTrue(Files.isDirectory(taken));
+        assertFalse(Files.exists(taken.resolve("book.json")));
+
+        // once the directory is free, the same book can be imported
+        Files.delete(taken);
+        result = worker.importBooks(done -> { }).getFirst();
+        assertEquals(ImportBooksWorker.Status.IMPORTED, result.status());
+    }
+}
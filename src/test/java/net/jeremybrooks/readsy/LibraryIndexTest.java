@@ -0,0 +1,297 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Book;
+import net.jeremybrooks.readsy.model.Page;
+import net.jeremybrooks.readsy.workers.RefreshBooksWorker;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LibraryIndexTest {
+    private Path libraryDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        libraryDirectory = Files.createTempDirectory("readsy-library");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(libraryDirectory.toFile());
+    }
+
+    @Test
+    public void testPutKeepsListSorted() {
+        LibraryIndex index = new LibraryIndex(libraryDirectory);
+        index.put(libraryDirectory.resolve("c"), book("c", "C"), FileTime.fromMillis(1));
+        index.put(libraryDirectory.resolve("a"), book("a", "A"), FileTime.fromMillis(1));
+        index.put(libraryDirectory.resolve("b"), book("b", "B"), FileTime.fromMillis(1));
+        assertEquals(3, index.getBooks().size());
+        assertEquals("A", index.getBooks().get(0).getTitle());
+        assertEquals("B", index.getBooks().get(1).getTitle());
+        assertEquals("C", index.getBooks().get(2).getTitle());
+
+        index.remove(libraryDirectory.resolve("b"));
+        assertEquals(2, index.getBooks().size());
+        assertNull(index.getBook(libraryDirectory.resolve("b")));
+    }
+
+    @Test
+    public void testPutUpdatesExistingBook() {
+        LibraryIndex index = new LibraryIndex(libraryDirectory);
+        Path dir = libraryDirectory.resolve("a");
+        Book original = book("a", "A");
+        original.setPageDate(LocalDate.of(2020, 5, 1));
+        index.put(dir, original, FileTime.fromMillis(1));
+
+        Book updated = book("a", "A");
+        updated.setStatusFlags("ff");
+        index.put(dir, updated, FileTime.fromMillis(2));
+
+        assertEquals(1, index.getBooks().size());
+        assertSame(original, index.getBooks().getFirst());
+        assertEquals("ff", original.getStatusFlags());
+        assertEquals(LocalDate.of(2020, 5, 1), original.getPageDate());
+        assertEquals(FileTime.fromMillis(2), index.getModifiedTime(dir));
+    }
+
+    @Test
+    public void testRefreshOnlyChangedDirectories() throws Exception {
+        writeBook("one", "One");
+        writeBook("two", "Two");
+        LibraryIndex index = new LibraryIndex(libraryDirectory);
+        new RefreshBooksWorker(index, Set.of(libraryDirectory), Runnable::run).run();
+        assertEquals(2, index.getBooks().size());
+
+        // remove one book, and change the other
+        FileUtils.deleteDirectory(libraryDirectory.resolve("one").toFile());
+        Book two = index.getBook(libraryDirectory.resolve("two"));
+        writeBook("two", "Two Updated");
+        Files.setLastModifiedTime(libraryDirectory.resolve("two").resolve("book.json"), FileTime.fromMillis(1000));
+        new RefreshBooksWorker(index, Set.of(libraryDirectory.resolve("one"), libraryDirectory.resolve("two")), Runnable::run).run();
+
+        assertEquals(1, index.getBooks().size());
+        assertSame(two, index.getBooks().getFirst());
+        assertEquals("Two Updated", two.getTitle());
+
+        // a full scan picks up new books
+        writeBook("three", "Three");
+        new RefreshBooksWorker(index, Set.of(libraryDirectory), Runnable::run).run();
+        assertEquals(2, index.getBooks().size());
+        assertEquals("Three", index.getBooks().getFirst().getTitle());
+    }
+
+    @Test
+    public void testBooksInFoldersAreFound() throws Exception {
+        writeBook("top", "Top");
+        writeBook("group/nested", "Nested");
+        writeBook("top/inside", "Inside");
+        Files.createDirectories(libraryDirectory.resolve("empty/folder"));
+        LibraryIndex index = new LibraryIndex(libraryDirectory);
+        new RefreshBooksWorker(index, Set.of(libraryDirectory), Runnable::run).run();
+
+        // directories inside a book are not searched for books
+        assertEquals(Set.of(libraryDirectory.resolve("group/nested"), libraryDirectory.resolve("top")),
+                index.getBookDirectories());
+
+        // nested books are kept in the snapshot
+        List<LibrarySnapshot.Entry> entries = LibrarySnapshot.read(
+                Files.write(libraryDirectory.resolve("library.snapshot"),
+                        LibrarySnapshot.toBytes(libraryDirectory, index.snapshotEntries())),
+                libraryDirectory);
+        assertEquals(2, entries.size());
+        assertEquals(libraryDirectory.resolve("group/nested"), entries.getFirst().directory());
+        assertEquals("Nested", entries.getFirst().book().getTitle());
+    }
+
+    @Test
+    public void testLoosePagesArePacked() throws Exception {
+        writeBook("one", "One");
+        Path one = libraryDirectory.resolve("one");
+        PageStore loose = PageStore.open(one);
+        for (int day = 1; day <= 10; day++) {
+            loose.writePage(day, page("Day " + day));
+        }
+        try (LibraryIndex index = new LibraryIndex(libraryDirectory)) {
+            new RefreshBooksWorker(index, Set.of(libraryDirectory), Runnable::run).run();
+            index.packLoosePages(index.getBookDirectories()).get();
+
+            assertTrue(Files.exists(one.resolve(PageStore.PACK_FILE_NAME)));
+            assertFalse(Files.exists(one.resolve("1.json")));
+            PageStore packed = PageStore.open(one);
+            assertFalse(packed.hasLoosePages());
+            for (int day = 1; day <= 10; day++) {
+                assertEquals("Day " + day, packed.readPage(day).getHeading());
+                assertEquals("Text for Day " + day, packed.readPage(day).getText());
+            }
+
+            // each book is only checked once
+            Files.delete(one.resolve(PageStore.PACK_FILE_NAME));
+            assertTrue(index.packLoosePages(index.getBookDirectories()).isDone());
+            assertFalse(Files.exists(one.resolve(PageStore.PACK_FILE_NAME)));
+        }
+    }
+
+    @Test
+    public void testFailedScanKeepsBooks() throws Exception {
+        writeBook("one", "One");
+        writeBook("two", "Two");
+        LibraryIndex index = new LibraryIndex(libraryDirectory);
+        new RefreshBooksWorker(index, Set.of(libraryDirectory), Runnable::run).run();
+        assertEquals(2, index.getBooks().size());
+
+        // the library cannot be listed while it is gone, so no books are removed
+        Path moved = libraryDirectory.resolveSibling(libraryDirectory.getFileName() + "-moved");
+        Files.move(libraryDirectory, moved);
+        try {
+            new RefreshBooksWorker(index, Set.of(libraryDirectory), Runnable::run).run();
+            assertEquals(2, index.getBooks().size());
+        } finally {
+            Files.move(moved, libraryDirectory);
+        }
+    }
+
+    @Test
+    public void testRefreshPublishesInBatches() throws Exception {
+        for (int i = 0; i < 120; i++) {
+            writeBook(String.format("book%03d", i), "Book " + i);
+        }
+        LibraryIndex index = new LibraryIndex(libraryDirectory);
+        List<Runnable> batches = new ArrayList<>();
+        new RefreshBooksWorker(index, Set.of(libraryDirectory), batches::add).run();
+        // nothing is applied until the batches are run
+        assertEquals(0, index.getBooks().size());
+        assertTrue(batches.size() > 1);
+        batches.forEach(Runnable::run);
+        assertEquals(120, index.getBooks().size());
+        assertEquals("Book 0", index.getBooks().getFirst().getTitle());
+        assertEquals("Book 119", index.getBooks().getLast().getTitle());
+    }
+
+    @Test
+    public void testLoadSnapshot() throws Exception {
+        writeBook("two", "Two");
+        writeBook("one", "One");
+        LibraryIndex index = new LibraryIndex(libraryDirectory);
+        new RefreshBooksWorker(index, Set.of(libraryDirectory), Runnable::run).run();
+        List<LibrarySnapshot.Entry> entries = new ArrayList<>();
+        for (Path dir : index.getBookDirectories()) {
+            entries.add(new LibrarySnapshot.Entry(dir, index.getBook(dir), index.getModifiedTime(dir)));
+        }
+        Path snapshotFile = Files.createTempFile("readsy-library", ".snapshot");
+        try {
+            Files.write(snapshotFile, LibrarySnapshot.toBytes(libraryDirectory, entries));
+
+            LibraryIndex restored = new LibraryIndex(libraryDirectory, snapshotFile);
+            assertTrue(restored.loadSnapshot());
+            assertEquals(2, restored.getBooks().size());
+            assertEquals("One", restored.getBooks().getFirst().getTitle());
+            Path one = libraryDirectory.resolve("one");
+            assertEquals(index.getModifiedTime(one), restored.getModifiedTime(one));
+
+            // the scan only picks up the book that changed after the snapshot
+            Book two = restored.getBook(libraryDirectory.resolve("two"));
+            writeBook("two", "Two Updated");
+            Files.setLastModifiedTime(libraryDirectory.resolve("two").resolve("book.json"), FileTime.fromMillis(1000));
+            new RefreshBooksWorker(restored, Set.of(libraryDirectory), Runnable::run).run();
+            assertEquals(2, restored.getBooks().size());
+            assertSame(two, restored.getBook(libraryDirectory.resolve("two")));
+            assertEquals("Two Updated", two.getTitle());
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    @Test
+    public void testSnapshotHasBooksAsWritten() throws Exception {
+        writeBook("one", "One");
+        Path one = libraryDirectory.resolve("one");
+        try (LibraryIndex index = new LibraryIndex(libraryDirectory)) {
+            new RefreshBooksWorker(index, Set.of(libraryDirectory), Runnable::run).run();
+            FileTime loaded = index.getModifiedTime(one);
+
+            // a change that has not been written yet is not in the snapshot
+            Book book = index.getBook(one);
+            book.setTitle("One Changed");
+            LibrarySnapshot.Entry entry = index.snapshotEntries().getFirst();
+            assertEquals("One", entry.book().getTitle());
+            assertEquals(loaded, entry.modifiedTime());
+
+            index.save(book);
+            index.flush();
+            entry = index.snapshotEntries().getFirst();
+            assertEquals("One Changed", entry.book().getTitle());
+            assertEquals(Files.getLastModifiedTime(one.resolve("book.json")), entry.modifiedTime());
+            assertEquals(entry.modifiedTime(), index.getModifiedTime(one));
+        }
+    }
+
+    @Test
+    public void testRefreshAfterClose() throws Exception {
+        writeBook("one", "One");
+        LibraryIndex index = new LibraryIndex(libraryDirectory);
+        index.close();
+        assertTrue(index.refresh(Set.of(libraryDirectory)).isDone());
+        assertTrue(index.getBooks().isEmpty());
+    }
+
+    private void writeBook(String directory, String title) throws Exception {
+        Path dir = Files.createDirectories(libraryDirectory.resolve(directory));
+        Book book = book(directory, title);
+        Files.write(dir.resolve("book.json"), MapperFactory.getObjectMapper().writeValueAsBytes(book));
+    }
+
+    private Book book(String directory, String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setShortTitle(directory);
+        book.setStatusFlags(Constants.NOTHING_READ);
+        book.setReadingStartDate("2025-01-01");
+        book.setReadingEndDate("2025-12-31");
+        book.setBookPath(libraryDirectory.resolve(directory).resolve("book.json").toString());
+        return book;
+    }
+
+    private static Page page(String heading) {
+        Page page = new Page();
+        page.setHeading(heading);
+        page.setText("Text for " + heading);
+        return page;
+    }
+}
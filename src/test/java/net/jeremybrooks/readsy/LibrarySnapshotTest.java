@@ -0,0 +1,100 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Book;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LibrarySnapshotTest {
+    private Path libraryDirectory;
+    private Path snapshotFile;
+
+    @Before
+    public void setUp() throws Exception {
+        libraryDirectory = Files.createTempDirectory("readsy-snapshot");
+        snapshotFile = libraryDirectory.resolve("library.snapshot");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(libraryDirectory.toFile());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Book book = new Book();
+        book.setTitle("Title");
+        book.setShortTitle("short");
+        book.setAuthor("Author");
+        book.setValidYear(2025);
+        book.setStatusFlags("ff00");
+        book.setReadingStartDate("2025-01-01");
+        book.setReadingEndDate("2025-12-31");
+        Path directory = libraryDirectory.resolve("short");
+        FileTime modified = FileTime.from(Instant.ofEpochSecond(1_700_000_000L, 123_456_789));
+        Files.write(snapshotFile, LibrarySnapshot.toBytes(libraryDirectory,
+                List.of(new LibrarySnapshot.Entry(directory, book, modified))));
+
+        List<LibrarySnapshot.Entry> entries = LibrarySnapshot.read(snapshotFile, libraryDirectory);
+        assertEquals(1, entries.size());
+        LibrarySnapshot.Entry entry = entries.getFirst();
+        assertEquals(directory, entry.directory());
+        assertEquals(modified, entry.modifiedTime());
+        Book loaded = entry.book();
+        assertEquals("Title", loaded.getTitle());
+        assertEquals("short", loaded.getShortTitle());
+        assertEquals("Author", loaded.getAuthor());
+        assertNull(loaded.getVersion());
+        assertEquals(2025, loaded.getValidYear());
+        assertEquals("ff00", loaded.getStatusFlags());
+        assertEquals("2025-01-01", loaded.getReadingStartDate());
+        assertEquals("2025-12-31", loaded.getReadingEndDate());
+        assertEquals(directory.resolve("book.json").toString(), loaded.getBookPath());
+    }
+
+    @Test
+    public void testUnusableSnapshotsAreIgnored() throws Exception {
+        assertTrue(LibrarySnapshot.read(snapshotFile, libraryDirectory).isEmpty());
+
+        Files.write(snapshotFile, LibrarySnapshot.toBytes(libraryDirectory.resolve("other"), List.of()));
+        assertTrue(LibrarySnapshot.read(snapshotFile, libraryDirectory).isEmpty());
+
+        byte[] bytes = LibrarySnapshot.toBytes(libraryDirectory, List.of(
+                new LibrarySnapshot.Entry(libraryDirectory.resolve("a"), new Book(), FileTime.fromMillis(1))));
+        Files.write(snapshotFile, Arrays.copyOf(bytes, bytes.length - 3));
+        assertTrue(LibrarySnapshot.read(snapshotFile, libraryDirectory).isEmpty());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.workers.LibraryWatcher;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class LibraryWatcherTest {
+    private Path libraryDirectory;
+    private Path bookDirectory;
+    private final BlockingQueue<Set<Path>> changes = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() throws Exception {
+        libraryDirectory = Files.createTempDirectory("readsy-library");
+        bookDirectory = Files.createDirectory(libraryDirectory.resolve("book"));
+        Files.writeString(bookDirectory.resolve("book.json"), "{}");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(libraryDirectory.toFile());
+    }
+
+    @Test
+    public void testOwnFilesAreIgnored() throws Exception {
+        try (LibraryWatcher watcher = new LibraryWatcher(libraryDirectory, changes::add)) {
+            watcher.start();
+            Files.writeString(bookDirectory.resolve(SearchIndex.INDEX_FILE_NAME), "index");
+            Files.writeString(bookDirectory.resolve(PageStore.PACK_FILE_NAME), "pages");
+            Files.writeString(libraryDirectory.resolve("notes.txt"), "not a book");
+            assertNull(changes.poll(1, TimeUnit.SECONDS));
+
+            Files.writeString(bookDirectory.resolve("book.json"), "{\"title\":\"Changed\"}");
+            assertEquals(Set.of(bookDirectory), changes.poll(2, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testBooksInFoldersAreWatched() throws Exception {
+        Path folder = Files.createDirectory(libraryDirectory.resolve("folder"));
+        Path nested = Files.createDirectory(folder.resolve("nested"));
+        Files.writeString(nested.resolve("book.json"), "{}");
+        try (LibraryWatcher watcher = new LibraryWatcher(libraryDirectory, changes::add)) {
+            watcher.start();
+            Files.writeString(nested.resolve("book.json"), "{\"title\":\"Changed\"}");
+            assertEquals(Set.of(nested), changes.poll(2, TimeUnit.SECONDS));
+
+            // a folder of books moved into the library
+            Path outside = Files.createTempDirectory("readsy-folder");
+            Path moved = Files.createDirectory(outside.resolve("moved"));
+            Files.writeString(Files.createDirectory(moved.resolve("book")).resolve("book.json"), "{}");
+            Files.move(moved, libraryDirectory.resolve("moved"));
+            FileUtils.deleteDirectory(outside.toFile());
+            assertEquals(Set.of(libraryDirectory.resolve("moved"), libraryDirectory.resolve("moved/book")),
+                    changes.poll(2, TimeUnit.SECONDS));
+
+            FileUtils.deleteDirectory(folder.toFile());
+            assertEquals(Set.of(folder, nested), changes.poll(2, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testCurrentBookIsIgnored() throws Exception {
+        try (LibraryWatcher watcher = new LibraryWatcher(libraryDirectory, changes::add, dir -> true)) {
+            watcher.start();
+            Files.writeString(bookDirectory.resolve("book.json"), "{\"title\":\"Changed\"}");
+            assertNull(changes.poll(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testContinuousChangesAreBatched() throws Exception {
+        try (LibraryWatcher watcher = new LibraryWatcher(libraryDirectory, changes::add)) {
+            watcher.start();
+            Set<Path> changed = null;
+            // keep changing the book more often than the watcher waits for quiet, for up to 6 seconds
+            for (int i = 0; i < 60 && changed == null; i++) {
+                Files.writeString(bookDirectory.resolve("book.json"), "{\"title\":\"Change " + i + "\"}");
+                changed = changes.poll(100, TimeUnit.MILLISECONDS);
+            }
+            assertNotNull(changed);
+            assertEquals(Set.of(bookDirectory), changed);
+        }
+    }
+}
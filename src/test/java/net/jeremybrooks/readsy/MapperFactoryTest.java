@@ -0,0 +1,77 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.jeremybrooks.readsy.model.Book;
+import net.jeremybrooks.readsy.model.Configuration;
+import net.jeremybrooks.readsy.model.Page;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class MapperFactoryTest {
+
+    @Test
+    public void testSharedInstances() {
+        assertSame(MapperFactory.getBookReader(), MapperFactory.getBookReader());
+        assertSame(MapperFactory.getPageWriter(), MapperFactory.getPageWriter());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Book book = new Book();
+        book.setTitle("Title");
+        book.setShortTitle("Short");
+        book.setStatusFlags(Constants.NOTHING_READ);
+        String json = MapperFactory.getBookWriter().writeValueAsString(book);
+        // null fields are not written
+        assertFalse(json.contains("author"));
+        Book fromJson = MapperFactory.getBookReader().readValue(json);
+        assertEquals("Title", fromJson.getTitle());
+        assertEquals(Constants.NOTHING_READ, fromJson.getStatusFlags());
+
+        Page page = new Page();
+        page.setHeading("Heading");
+        page.setText("Text");
+        Page pageFromJson = MapperFactory.getPageReader().readValue(MapperFactory.getPageWriter().writeValueAsBytes(page));
+        assertEquals("Heading", pageFromJson.getHeading());
+        assertEquals("Text", pageFromJson.getText());
+
+        Configuration configuration = new Configuration();
+        configuration.setBookDirectory("/tmp/books");
+        Configuration configurationFromJson = MapperFactory.getConfigurationReader()
+                .readValue(MapperFactory.getConfigurationWriter().writeValueAsBytes(configuration));
+        assertEquals("/tmp/books", configurationFromJson.getBookDirectory());
+    }
+
+    @Test
+    public void testAcceleratedMapper() throws Exception {
+        ObjectMapper mapper = MapperFactory.getObjectMapper(true);
+        Page page = new Page();
+        page.setHeading("Heading");
+        Page fromJson = mapper.readValue(mapper.writeValueAsString(page), Page.class);
+        assertEquals("Heading", fromJson.getHeading());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Page;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PageCacheTest {
+    private Path bookDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        bookDirectory = Files.createTempDirectory("readsy-book");
+        for (int day = 1; day <= 10; day++) {
+            Page page = new Page();
+            page.setHeading("Day " + day);
+            page.setText("0123456789");
+            Files.write(bookDirectory.resolve(day + ".json"), MapperFactory.getObjectMapper().writeValueAsBytes(page));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(bookDirectory.toFile());
+    }
+
+    @Test
+    public void testPagesAreCached() throws Exception {
+        try (PageCache cache = new PageCache()) {
+            Page page = cache.getPage(bookDirectory, 1);
+            assertEquals("Day 1", page.getHeading());
+            Files.deleteIfExists(bookDirectory.resolve("1.json"));
+            assertSame(page, cache.getPage(bookDirectory, 1));
+
+            cache.invalidate(bookDirectory);
+            assertEquals(0, cache.size());
+            assertEquals(0, cache.characters());
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPagesAreEvicted() throws Exception {
+        // each page is 15 characters, so only three fit
+        try (PageCache cache = new PageCache(45)) {
+            Page one = cache.getPage(bookDirectory, 1);
+            cache.getPage(bookDirectory, 2);
+            cache.getPage(bookDirectory, 3);
+            assertEquals(3, cache.size());
+
+            // use day 1 so day 2 is the eldest
+            assertSame(one, cache.getPage(bookDirectory, 1));
+            cache.getPage(bookDirectory, 4);
+            assertEquals(3, cache.size());
+            assertTrue(cache.characters() <= 45);
+
+            Files.deleteIfExists(bookDirectory.resolve("1.json"));
+            assertSame(one, cache.getPage(bookDirectory, 1));
+        }
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        try (PageCache cache = new PageCache()) {
+            cache.prefetch(bookDirectory, 0, 5, 6, 11);
+            // day 11 has no page, so it is cached as a blank page
+            for (int i = 0; i < 100 && cache.size() < 3; i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(3, cache.size());
+            assertEquals("", cache.getPage(bookDirectory, 11).getHeading());
+            Files.deleteIfExists(bookDirectory.resolve("5.json"));
+            assertEquals("Day 5", cache.getPage(bookDirectory, 5).getHeading());
+        }
+    }
+
+    @Test
+    public void testReadingDoesNotPackBook() throws Exception {
+        try (PageCache cache = new PageCache()) {
+            cache.getPage(bookDirectory, 1);
+            cache.prefetch(bookDirectory, 2, 3);
+            for (int i = 0; i < 100 && cache.size() < 3; i++) {
+                Thread.sleep(20);
+            }
+        }
+        assertFalse(Files.exists(bookDirectory.resolve(PageStore.PACK_FILE_NAME)));
+        assertTrue(Files.exists(bookDirectory.resolve("1.json")));
+    }
+
+    @Test
+    public void testInvalidateDropsPagesBeingLoaded() throws Exception {
+        try (PageCache cache = new PageCache()) {
+            cache.prefetch(bookDirectory, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+            cache.invalidate(bookDirectory);
+            Thread.sleep(200);
+            assertEquals(0, cache.size());
+
+            // loading works again after the book was invalidated
+            cache.prefetch(bookDirectory, 1);
+            for (int i = 0; i < 100 && cache.size() < 1; i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(1, cache.size());
+        }
+    }
+}
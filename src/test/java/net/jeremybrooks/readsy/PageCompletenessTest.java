@@ -0,0 +1,123 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Page;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PageCompletenessTest {
+    private Path bookDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        bookDirectory = Files.createTempDirectory("readsy-complete");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(bookDirectory.toFile());
+    }
+
+    private static Page page(String heading, String text) {
+        Page page = new Page();
+        page.setHeading(heading);
+        page.setText(text);
+        return page;
+    }
+
+    @Test
+    public void testBuildFromPages() throws Exception {
+        PageStore store = PageStore.open(bookDirectory);
+        store.writePage(1, page("One", "Text"));
+        store.writePage(2, page("Two", ""));
+        store.writePage(3, page("Three", "Text"));
+
+        PageCompleteness completeness = PageCompleteness.open(store, 5);
+        assertTrue(Files.exists(bookDirectory.resolve(PageCompleteness.FILE_NAME)));
+        assertEquals(Integer.valueOf(2), completeness.getFirstIncompleteDay());
+        assertEquals(List.of(2, 4, 5), completeness.getIncompleteDays());
+    }
+
+    @Test
+    public void testUpdateIsSaved() throws Exception {
+        PageStore store = PageStore.open(bookDirectory);
+        PageCompleteness completeness = PageCompleteness.open(store, 3);
+        assertEquals(Integer.valueOf(1), completeness.getFirstIncompleteDay());
+        for (int day = 1; day <= 3; day++) {
+            assertTrue(completeness.update(day, page("Heading", "Text")));
+        }
+        assertFalse(completeness.update(3, page("Heading", "Other text")));
+        assertNull(completeness.getFirstIncompleteDay());
+        completeness.save();
+
+        // the saved flags are used without reading the pages, which are still blank
+        PageCompleteness reopened = PageCompleteness.open(PageStore.open(bookDirectory), 3);
+        assertNull(reopened.getFirstIncompleteDay());
+        reopened.update(2, page("", "Text"));
+        reopened.save();
+        assertEquals(List.of(2), PageCompleteness.open(PageStore.open(bookDirectory), 3).getIncompleteDays());
+    }
+
+    @Test
+    public void testDamagedFileIsRebuilt() throws Exception {
+        Files.writeString(bookDirectory.resolve(PageCompleteness.FILE_NAME), "not hex");
+        PageStore store = PageStore.open(bookDirectory);
+        store.writePage(1, page("One", "Text"));
+        assertEquals(List.of(2), PageCompleteness.open(store, 2).getIncompleteDays());
+    }
+
+    @Test
+    public void testPagesChangedOutsideTheEditor() throws Exception {
+        PageStore store = PageStore.open(bookDirectory);
+        store.writePage(1, page("One", "Text"));
+        assertEquals(List.of(2, 3), PageCompleteness.open(store, 3).getIncompleteDays());
+
+        // a page written by something else changes the fingerprint, so the flags are built again
+        Files.writeString(bookDirectory.resolve("2.json"), "{\"heading\":\"Two\",\"text\":\"Text\"}");
+        assertEquals(List.of(3), PageCompleteness.open(PageStore.open(bookDirectory), 3).getIncompleteDays());
+
+        // and so does a packed book
+        PageStore.pack(bookDirectory);
+        Files.writeString(bookDirectory.resolve("3.json"), "{\"heading\":\"Three\",\"text\":\"Text\"}");
+        assertNull(PageCompleteness.open(PageStore.open(bookDirectory), 3).getFirstIncompleteDay());
+    }
+
+    @Test
+    public void testWhiteSpaceIsBlank() {
+        assertFalse(PageCompleteness.isComplete(page(" ", "Text")));
+        assertFalse(PageCompleteness.isComplete(page("Heading", "\n\t ")));
+        assertFalse(PageCompleteness.isComplete(page(null, "Text")));
+        assertTrue(PageCompleteness.isComplete(page("Heading", "Text")));
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import net.jeremybrooks.readsy.model.Page;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PageStoreTest {
+    private Path bookDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        bookDirectory = Files.createTempDirectory("readsy-book");
+        Files.writeString(bookDirectory.resolve("book.json"), "{}");
+        for (int day = 1; day <= 366; day++) {
+            if (day != 100) {
+                Files.write(bookDirectory.resolve(day + ".json"),
+                        MapperFactory.getObjectMapper().writeValueAsBytes(page("Day " + day)));
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(bookDirectory.toFile());
+    }
+
+    @Test
+    public void testPack() throws Exception {
+        PageStore loose = PageStore.open(bookDirectory);
+        assertTrue(loose.hasLoosePages());
+        assertEquals("Day 42", loose.readPage(42).getHeading());
+
+        PageStore.pack(bookDirectory);
+        assertTrue(Files.exists(bookDirectory.resolve(PageStore.PACK_FILE_NAME)));
+        assertFalse(Files.exists(bookDirectory.resolve("1.json")));
+        assertTrue(Files.exists(bookDirectory.resolve("book.json")));
+
+        PageStore packed = PageStore.open(bookDirectory);
+        assertFalse(packed.hasLoosePages());
+        for (int day = 1; day <= 366; day++) {
+            if (day == 100) {
+                assertFalse(packed.hasPage(day));
+            } else {
+                assertEquals("Day " + day, packed.readPage(day).getHeading());
+                assertEquals("Text for Day " + day, packed.readPage(day).getText());
+            }
+        }
+    }
+
+    @Test
+    public void testPackLoosePagesOnlyOnce() throws Exception {
+        assertTrue(PageStore.packLoosePages(bookDirectory));
+        assertFalse(PageStore.open(bookDirectory).hasLoosePages());
+
+        // a book with a packed file is left alone, even with an edited page
+        PageStore.open(bookDirectory).writePage(1, page("Edited"));
+        assertFalse(PageStore.packLoosePages(bookDirectory));
+        assertTrue(Files.exists(bookDirectory.resolve("1.json")));
+
+        Path empty = Files.createTempDirectory("readsy-empty");
+        try {
+            assertFalse(PageStore.packLoosePages(empty));
+            assertFalse(Files.exists(empty.resolve(PageStore.PACK_FILE_NAME)));
+        } finally {
+            FileUtils.deleteDirectory(empty.toFile());
+        }
+    }
+
+    @Test
+    public void testMissingPageIsBlank() throws Exception {
+        PageStore.pack(bookDirectory);
+        PageStore store = PageStore.open(bookDirectory);
+        assertFalse(store.hasPage(100));
+        Page page = store.readPage(100);
+        assertEquals("", page.getHeading());
+        assertEquals("", page.getText());
+    }
+
+    @Test(expected = NoSuchFileException.class)
+    public void testDayBeforeFirstDay() throws Exception {
+        PageStore.open(bookDirectory).readPage(0);
+    }
+
+    @Test
+    public void testLoosePageOverridesPackedPage() throws Exception {
+        PageStore.pack(bookDirectory);
+        PageStore store = PageStore.open(bookDirectory);
+        store.writePage(7, page("Edited"));
+        store.writePage(100, page("New"));
+        assertEquals("Edited", store.readPage(7).getHeading());
+        assertEquals("Edited", PageStore.open(bookDirectory).readPage(7).getHeading());
+        assertEquals("New", store.readPage(100).getHeading());
+
+        // packing again folds the edits into the packed file
+        PageStore.pack(bookDirectory);
+        store = PageStore.open(bookDirectory);
+        assertFalse(store.hasLoosePages());
+        assertEquals("Edited", store.readPage(7).getHeading());
+        assertEquals("New", store.readPage(100).getHeading());
+        assertEquals("Day 8", store.readPage(8).getHeading());
+    }
+
+    @Test
+    public void testPackedFileCanBeReplacedWhileOpen() throws Exception {
+        PageStore.pack(bookDirectory);
+        PageStore store = PageStore.open(bookDirectory);
+        assertEquals("Day 8", store.readPage(8).getHeading());
+
+        // the store holds its own copy of the packed file, so the file can be replaced or deleted
+        store.writePage(8, page("Edited"));
+        PageStore.pack(bookDirectory);
+        assertEquals("Edited", PageStore.open(bookDirectory).readPage(8).getHeading());
+        Files.delete(bookDirectory.resolve(PageStore.PACK_FILE_NAME));
+        assertEquals("Day 9", store.readPage(9).getHeading());
+        assertEquals(366, store.getLastDay());
+    }
+
+    @Test(expected = IOException.class)
+    public void testDamagedPackedFile() throws Exception {
+        PageStore.pack(bookDirectory);
+        Path packFile = bookDirectory.resolve(PageStore.PACK_FILE_NAME);
+        byte[] bytes = Files.readAllBytes(packFile);
+        Files.write(packFile, Arrays.copyOf(bytes, bytes.length / 2));
+        PageStore.open(bookDirectory);
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotAPackedFile() throws Exception {
+        Files.writeString(bookDirectory.resolve(PageStore.PACK_FILE_NAME), "not a page file");
+        PageStore.open(bookDirectory);
+    }
+
+    @Test
+    public void testParserSkipsUnknownFields() throws Exception {
+        Files.writeString(bookDirectory.resolve("5.json"), """
+                {"extra": {"nested": [1, 2, {"heading": "wrong"}]},
+                 "heading": "Five", "other": null, "text": "Text \\u00e9"}""");
+        PageStore.pack(bookDirectory);
+        Page page = PageStore.open(bookDirectory).readPage(5);
+        assertEquals("Five", page.getHeading());
+        assertEquals("Text \u00e9", page.getText());
+    }
+
+    @Test
+    public void testParserMissingFields() throws Exception {
+        Files.writeString(bookDirectory.resolve("5.json"), "{\"heading\": \"Five\"}");
+        Page page = PageStore.open(bookDirectory).readPage(5);
+        assertEquals("Five", page.getHeading());
+        assertNull(page.getText());
+    }
+
+    @Test(expected = JsonProcessingException.class)
+    public void testParserRejectsNonObject() throws Exception {
+        Files.writeString(bookDirectory.resolve("5.json"), "[\"Five\"]");
+        PageStore.open(bookDirectory).readPage(5);
+    }
+
+    @Test(expected = JsonProcessingException.class)
+    public void testParserRejectsDamagedPage() throws Exception {
+        Files.writeString(bookDirectory.resolve("5.json"), "{\"heading\": \"Fi");
+        PageStore.open(bookDirectory).readPage(5);
+    }
+
+    private static Page page(String heading) {
+        Page page = new Page();
+        page.setHeading(heading);
+        page.setText("Text for " + heading);
+        return page;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReadingCalendarTest {
+
+    private static long day(int year, int month, int dayOfMonth) {
+        return LocalDate.of(year, month, dayOfMonth).toEpochDay();
+    }
+
+    @Test
+    public void testDayOfReadingYear() {
+        assertEquals(1, ReadingCalendar.dayOfReadingYear(day(2025, 2, 1), day(2025, 2, 1)));
+        assertEquals(3, ReadingCalendar.dayOfReadingYear(day(2025, 2, 1), day(2025, 2, 3)));
+        assertEquals(0, ReadingCalendar.dayOfReadingYear(day(2025, 2, 1), day(2025, 1, 31)));
+        // leap day
+        assertEquals(60, ReadingCalendar.dayOfReadingYear(day(2024, 1, 1), day(2024, 2, 29)));
+        // one year boundary
+        assertEquals(2, ReadingCalendar.dayOfReadingYear(day(2024, 12, 31), day(2025, 1, 1)));
+        // more than one year boundary
+        assertEquals(368, ReadingCalendar.dayOfReadingYear(day(2023, 12, 31), day(2025, 1, 1)));
+    }
+
+    @Test
+    public void testDaysInRange() {
+        assertEquals(365, ReadingCalendar.daysInRange(day(2025, 1, 1), day(2025, 12, 31)));
+        assertEquals(366, ReadingCalendar.daysInRange(day(2024, 1, 1), day(2024, 12, 31)));
+        assertEquals(731, ReadingCalendar.daysInRange(day(2024, 1, 1), day(2025, 12, 31)));
+        assertEquals(1, ReadingCalendar.daysInRange(day(2025, 1, 1), day(2025, 1, 1)));
+    }
+
+    @Test
+    public void testIsInRange() {
+        long start = day(2024, 7, 1);
+        long end = day(2026, 6, 30);
+        assertTrue(ReadingCalendar.isInRange(start, start, end));
+        assertTrue(ReadingCalendar.isInRange(end, start, end));
+        assertTrue(ReadingCalendar.isInRange(day(2025, 12, 31), start, end));
+        assertFalse(ReadingCalendar.isInRange(start - 1, start, end));
+        assertFalse(ReadingCalendar.isInRange(end + 1, start, end));
+    }
+
+    @Test
+    public void testCustomLengthPlan() {
+        long start = day(2025, 1, 1);
+        long end = day(2025, 3, 31);
+        assertEquals(90, ReadingCalendar.daysInRange(start, end));
+        assertEquals(1, ReadingCalendar.dayOfReadingYear(start, start));
+        assertEquals(90, ReadingCalendar.dayOfReadingYear(start, end));
+        assertTrue(ReadingCalendar.isInRange(end, start, end));
+        assertFalse(ReadingCalendar.isInRange(end + 1, start, end));
+    }
+}
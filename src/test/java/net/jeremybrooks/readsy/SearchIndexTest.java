@@ -0,0 +1,155 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Page;
+import net.jeremybrooks.readsy.workers.RefreshBooksWorker;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SearchIndexTest {
+    private Path library;
+    private Path bookOne;
+    private Path bookTwo;
+    private SearchIndex searchIndex;
+
+    @Before
+    public void setUp() throws Exception {
+        library = Files.createTempDirectory("readsy-search");
+        bookOne = Files.createDirectory(library.resolve("one"));
+        bookTwo = Files.createDirectory(library.resolve("two"));
+        PageStore one = PageStore.open(bookOne);
+        one.writePage(1, page("Morning", "The quick brown fox."));
+        one.writePage(2, page("Evening", "A lazy dog sleeps by the fox."));
+        one.writePage(4, page("Fox", "Fox, fox and more fox."));
+        PageStore two = PageStore.open(bookTwo);
+        two.writePage(3, page("Rivers", "Water flows to the sea, past the brown hills."));
+        searchIndex = new SearchIndex();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        searchIndex.close();
+        FileUtils.deleteDirectory(library.toFile());
+    }
+
+    private static Page page(String heading, String text) {
+        Page page = new Page();
+        page.setHeading(heading);
+        page.setText(text);
+        return page;
+    }
+
+    @Test
+    public void testTokenize() {
+        List<String> words = new ArrayList<>();
+        SearchIndex.tokenize("It's a Quick-brown FOX, 42!", (word, weight) -> words.add(word));
+        assertEquals(List.of("it", "quick", "brown", "fox", "42"), words);
+    }
+
+    @Test
+    public void testSearchRanksResults() throws Exception {
+        searchIndex.update(Set.of(bookOne, bookTwo)).get();
+        assertEquals(2, searchIndex.size());
+        assertTrue(Files.exists(bookOne.resolve(SearchIndex.INDEX_FILE_NAME)));
+
+        List<SearchIndex.Result> results = searchIndex.search("fox", 10);
+        assertEquals(3, results.size());
+        assertEquals(new SearchIndex.Result(bookOne, 4, results.getFirst().score()), results.getFirst());
+
+        results = searchIndex.search("Brown FOX", 10);
+        assertEquals(bookOne, results.getFirst().bookDirectory());
+        assertEquals(1, results.getFirst().day());
+        assertEquals(4, results.size());
+        assertTrue(results.stream().anyMatch(result -> result.bookDirectory().equals(bookTwo)));
+
+        assertEquals(1, searchIndex.search("fox", 1).size());
+        assertTrue(searchIndex.search("elephant", 10).isEmpty());
+        assertTrue(searchIndex.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    public void testIndexIsReusedAndUpdated() throws Exception {
+        searchIndex.update(Set.of(bookOne)).get();
+        searchIndex.close();
+
+        // a new index reads the saved file
+        searchIndex = new SearchIndex();
+        searchIndex.update(Set.of(bookOne)).get();
+        assertEquals(3, searchIndex.search("fox", 10).size());
+
+        // changing a page rebuilds the index for the book
+        PageStore.open(bookOne).writePage(5, page("Elephant", "Big and grey."));
+        searchIndex.update(Set.of(bookOne)).get();
+        assertEquals(5, searchIndex.search("elephant", 10).getFirst().day());
+
+        searchIndex.remove(bookOne);
+        assertTrue(searchIndex.search("fox", 10).isEmpty());
+    }
+
+    @Test
+    public void testDeletedBookIsDropped() throws Exception {
+        searchIndex.update(Set.of(bookOne, bookTwo)).get();
+        FileUtils.deleteDirectory(bookTwo.toFile());
+        searchIndex.update(Set.of(bookTwo)).get();
+        assertEquals(1, searchIndex.size());
+    }
+
+    @Test
+    public void testLibraryKeepsIndexCurrent() throws Exception {
+        Path other = Files.createDirectory(Files.createTempDirectory("readsy-other").resolve("other"));
+        try {
+            PageStore.open(other).writePage(1, page("Other", "A fox from another library."));
+            searchIndex.update(Set.of(other)).get();
+            Files.writeString(bookOne.resolve("book.json"), "{\"title\":\"One\"}");
+            Files.writeString(bookTwo.resolve("book.json"), "{\"title\":\"Two\"}");
+
+            LibraryIndex libraryIndex = new LibraryIndex(library);
+            libraryIndex.setSearchIndex(searchIndex);
+            assertEquals(0, searchIndex.size());
+
+            // books are indexed as they are added to the library; the indexer runs updates in order
+            new RefreshBooksWorker(libraryIndex, Set.of(library), Runnable::run).run();
+            searchIndex.update(Set.of()).get();
+            assertEquals(2, searchIndex.size());
+            assertEquals(3, searchIndex.search("fox", 10).size());
+
+            FileUtils.deleteDirectory(bookTwo.toFile());
+            new RefreshBooksWorker(libraryIndex, Set.of(library), Runnable::run).run();
+            assertEquals(1, searchIndex.size());
+            assertTrue(searchIndex.search("rivers", 10).isEmpty());
+        } finally {
+            FileUtils.deleteDirectory(other.getParent().toFile());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.AppModel;
+import net.jeremybrooks.readsy.model.Book;
+import net.jeremybrooks.readsy.model.Configuration;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class StartupPipelineTest {
+    private Path libraryDirectory;
+    private Path snapshotFile;
+    private AppModel appModel;
+
+    @Before
+    public void setUp() throws Exception {
+        libraryDirectory = Files.createTempDirectory("readsy-startup");
+        snapshotFile = Files.createTempFile("readsy-startup", ".snapshot");
+        appModel = new AppModel();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        appModel.getSearchIndex().close();
+        FileUtils.deleteDirectory(libraryDirectory.toFile());
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    @Test
+    public void testLibraryIndexIsFilledFromSnapshot() throws Exception {
+        Files.write(snapshotFile, LibrarySnapshot.toBytes(libraryDirectory, List.of(entry("two"), entry("one"))));
+        StartupPipeline pipeline = StartupPipeline.start(appModel, new StartupTimer(), this::configuration, snapshotFile);
+
+        LibraryIndex index = pipeline.loadLibraryIndex(10_000);
+        assertNotNull(index);
+        try (index) {
+            assertEquals(libraryDirectory, index.getBookDirectory());
+            assertEquals(2, index.getBooks().size());
+            assertEquals("one", index.getBooks().getFirst().getTitle());
+            assertEquals(FileTime.fromMillis(1000), index.getModifiedTime(libraryDirectory.resolve("one")));
+        }
+    }
+
+    @Test
+    public void testLateSnapshotIsNotUsed() throws Exception {
+        Files.write(snapshotFile, LibrarySnapshot.toBytes(libraryDirectory, List.of(entry("one"))));
+        CountDownLatch release = new CountDownLatch(1);
+        StartupPipeline pipeline = StartupPipeline.start(appModel, new StartupTimer(), () -> {
+            release.await();
+            return configuration();
+        }, snapshotFile);
+
+        // nothing is created in the background, so there is nothing to close
+        assertNull(pipeline.loadLibraryIndex(10));
+        release.countDown();
+    }
+
+    @Test
+    public void testNoLibrary() throws Exception {
+        StartupPipeline pipeline = StartupPipeline.start(appModel, new StartupTimer(), Configuration::new, snapshotFile);
+        assertNull(pipeline.loadLibraryIndex(10_000));
+    }
+
+    private Configuration configuration() {
+        Configuration configuration = new Configuration();
+        configuration.setBookDirectory(libraryDirectory.toString());
+        return configuration;
+    }
+
+    private LibrarySnapshot.Entry entry(String directory) {
+        Path dir = libraryDirectory.resolve(directory);
+        Book book = new Book();
+        book.setTitle(directory);
+        book.setStatusFlags(Constants.NOTHING_READ);
+        book.setBookPath(dir.resolve("book.json").toString());
+        return new LibrarySnapshot.Entry(dir, book, FileTime.fromMillis(1000));
+    }
+}
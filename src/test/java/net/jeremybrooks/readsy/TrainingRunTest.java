@@ -0,0 +1,76 @@
+/*
+ * readsy - read something new every day <http://jeremybrooks.net/readsy>
+ *
+ * Copyright (c) 2013-2025  Jeremy Brooks
+ *
+ * This file is part of readsy.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.jeremybrooks.readsy;
+
+import net.jeremybrooks.readsy.model.Configuration;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TrainingRunTest {
+    private Path home;
+
+    @Before
+    public void setUp() throws Exception {
+        home = Files.createTempDirectory("readsy-training-test");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(home.toFile());
+    }
+
+    @Test
+    public void testPrepareHome() throws Exception {
+        TrainingRun.prepareHome(home);
+
+        Configuration configuration = MapperFactory.getConfigurationReader()
+                .readValue(home.resolve(".readsy").resolve("ReadsyConfig.json").toFile());
+        Path library = Paths.get(configuration.getBookDirectory());
+        assertTrue(library.startsWith(home));
+        try (var books = Files.list(library)) {
+            Path book = books.findFirst().orElseThrow();
+            assertTrue(Files.exists(book.resolve("book.json")));
+            assertTrue(Files.exists(book.resolve(CoverCache.COVER_FILE_NAME)));
+            assertEquals("Day 3", PageStore.open(book).readPage(3).getHeading());
+        }
+    }
+
+    @Test
+    public void testCommand() {
+        List<String> command = TrainingRun.command(home, "-Dextra=true");
+        assertEquals(Readsy.class.getName(), command.getLast());
+        assertTrue(command.contains("-Duser.home=" + home));
+        assertTrue(command.contains("-Dextra=true"));
+        assertFalse(command.stream().anyMatch(option -> option.startsWith("-XX:SharedArchiveFile")));
+    }
+}